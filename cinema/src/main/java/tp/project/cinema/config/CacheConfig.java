@@ -0,0 +1,40 @@
+package tp.project.cinema.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+// Каталог фильмов меняется несколько раз в день, а читается на каждой загрузке главной страницы
+// Кэш оборачивает транзакцию снаружи: записи сбрасываются уже после коммита,
+// иначе параллельное чтение успело бы вернуть в кэш старые данные
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String FILMS = "films";
+    public static final String FILM_BY_ID = "filmById";
+    public static final String NOW_PLAYING = "nowPlayingFilms";
+    public static final String COMING_SOON = "comingSoonFilms";
+    public static final String FILM_INFO = "filmInfo";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${catalog.cache.maximum-size:1000}") long maximumSize,
+                                     @Value("${catalog.cache.ttl-minutes:30}") long ttlMinutes) {
+        // Набор кэшей фиксирован, опечатка в имени не создаст новый кэш
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(FILMS, FILM_BY_ID, NOW_PLAYING, COMING_SOON, FILM_INFO);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                // TTL страхует записи, зависящие от времени (идущие и скоро выходящие фильмы)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+}
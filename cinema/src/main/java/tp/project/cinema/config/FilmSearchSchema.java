@@ -0,0 +1,30 @@
+package tp.project.cinema.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Полнотекстовый поиск фильмов в PostgreSQL: вычисляемая колонка tsvector по названию (вес A)
+// и описанию (вес B) в русской и английской конфигурациях и GIN-индекс по ней.
+// Hibernate (ddl-auto: update) такие колонки не создаёт, поэтому схема дополняется при старте
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "film.search.mode", havingValue = "fulltext")
+public class FilmSearchSchema implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("ALTER TABLE film ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                "GENERATED ALWAYS AS (" +
+                "setweight(to_tsvector('russian', coalesce(title, '')), 'A') || " +
+                "setweight(to_tsvector('english', coalesce(title, '')), 'A') || " +
+                "setweight(to_tsvector('russian', coalesce(description, '')), 'B') || " +
+                "setweight(to_tsvector('english', coalesce(description, '')), 'B')) STORED");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_film_search_vector ON film USING GIN (search_vector)");
+    }
+}
@@ -0,0 +1,37 @@
+package tp.project.cinema.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ограничение частоты запросов по группам маршрутов (rate-limit в application.yaml)
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Сколько клиентов (пользователь или IP в группе) хранится одновременно
+    private long maxClients = 100_000;
+    // Неактивный клиент забывается: к этому времени его корзина всё равно была бы полной
+    private long idleMinutes = 10;
+    // Группы проверяются по порядку, запрос попадает в первую подходящую
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Data
+    public static class Group {
+        // Ant-шаблоны путей, например /api/bookings/**
+        private List<String> paths = new ArrayList<>();
+        // Пустой список - все методы
+        private List<String> methods = new ArrayList<>();
+        // Размер корзины: сколько запросов можно сделать подряд
+        private int capacity = 60;
+        // Скорость пополнения корзины, запросов в минуту
+        private int perMinute = 60;
+    }
+}
@@ -0,0 +1,36 @@
+package tp.project.cinema.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Билеты, бронирования, места и сеансы получают ID из последовательностей с шагом 50 (пакетная вставка).
+// Раньше ID выдавала IDENTITY-колонка, поэтому при старте последовательность сдвигается выше уже занятых ID
+@Component
+@RequiredArgsConstructor
+public class SequenceAlignment implements ApplicationRunner {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    // последовательность -> таблица и колонка ID
+    private static final Map<String, String[]> SEQUENCES = Map.of(
+            "ticket_seq", new String[]{"ticket", "ticket_id"},
+            "booking_seq", new String[]{"booking", "booking_id"},
+            "seat_seq", new String[]{"seat", "seat_id"},
+            "session_seq", new String[]{"session", "session_id"}
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SEQUENCES.forEach((sequence, target) -> jdbcTemplate.execute(
+                "SELECT setval('" + sequence + "', GREATEST(" +
+                        "(SELECT COALESCE(MAX(" + target[1] + "), 0) FROM " + target[0] + ") + " + ALLOCATION_SIZE + ", " +
+                        "(SELECT last_value FROM " + sequence + ")))"));
+    }
+}
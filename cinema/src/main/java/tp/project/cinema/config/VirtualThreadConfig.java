@@ -0,0 +1,123 @@
+package tp.project.cinema.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Режим виртуальных потоков (spring.threads.virtual.enabled: true): запросы Tomcat и @Async
+// выполняются в виртуальных потоках, которых может быть сколько угодно. Пул соединений при этом
+// остаётся маленьким, а число одновременных обращений к БД ограничивает честный семафор -
+// лишние потоки ждут своей очереди и получают отказ по таймауту, а не штурмуют пул Hikari
+@Configuration
+@EnableAsync
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor dbConcurrencyLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof LimitedDataSource)) {
+                    // 0 - по размеру пула: больше соединений всё равно не выдать
+                    int permits = environment.getProperty("db.concurrency.max-permits", Integer.class, 0);
+                    if (permits <= 0) {
+                        permits = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                    }
+                    long timeoutMillis = environment.getProperty("db.concurrency.acquire-timeout-ms", Long.class, 3000L);
+                    return new LimitedDataSource(dataSource, permits, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Разрешение берётся при получении соединения и возвращается при его закрытии
+    static class LimitedDataSource extends DelegatingDataSource {
+
+        private final Semaphore permits;
+        private final long timeoutMillis;
+
+        LimitedDataSource(DataSource target, int permits, long timeoutMillis) {
+            super(target);
+            this.permits = new Semaphore(permits, true);
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            acquire();
+            try {
+                return limited(super.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            acquire();
+            try {
+                return limited(super.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        private void acquire() throws SQLException {
+            try {
+                if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new SQLTransientConnectionException(
+                            "БД перегружена: нет свободного соединения за " + timeoutMillis + " мс");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Ожидание соединения прервано", e);
+            }
+        }
+
+        private Connection limited(Connection connection) {
+            AtomicBoolean released = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
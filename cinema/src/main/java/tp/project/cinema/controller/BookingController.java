@@ -6,6 +6,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tp.project.cinema.dto.BookingDto;
+import tp.project.cinema.dto.CursorPage;
+import tp.project.cinema.dto.TicketDto;
 import tp.project.cinema.service.BookingService;
 
 import jakarta.validation.Valid;
@@ -28,6 +30,14 @@ public class BookingController {
         return ResponseEntity.ok(bookings);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<BookingDto>> getBookingsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<BookingDto> page = bookingService.getBookingsPage(cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BookingDto> getBookingById(@PathVariable Long id) {
         BookingDto booking = bookingService.getBookingById(id);
@@ -45,6 +55,14 @@ public class BookingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking);
     }
 
+    @PostMapping("/{id}/tickets:batch")
+    public ResponseEntity<BookingDto> addTickets(
+            @PathVariable Long id,
+            @RequestBody List<TicketDto> tickets) {
+        BookingDto booking = bookingService.addTickets(id, tickets);
+        return ResponseEntity.status(HttpStatus.CREATED).body(booking);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<BookingDto> updateBooking(
             @PathVariable Long id,
@@ -125,6 +143,16 @@ public class BookingController {
         return ResponseEntity.ok(bookings);
     }
 
+    @GetMapping("/date-range/page")
+    public ResponseEntity<CursorPage<BookingDto>> getBookingsByDateRangePage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<BookingDto> page = bookingService.getBookingsByDateRangePage(start, end, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/user/{userId}/from-date")
     public ResponseEntity<List<BookingDto>> getBookingsFromDate(
             @PathVariable Long userId,
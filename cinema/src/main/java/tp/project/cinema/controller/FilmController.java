@@ -2,13 +2,19 @@ package tp.project.cinema.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.DirectorDto;
+import tp.project.cinema.dto.FilmBrowseDto;
 import tp.project.cinema.dto.FilmDto;
 import tp.project.cinema.dto.FilmInfoListDto;
 import tp.project.cinema.dto.SessionDto;
+import tp.project.cinema.service.CatalogVersions;
 import tp.project.cinema.service.FilmService;
 
 import jakarta.validation.Valid;
@@ -16,6 +22,7 @@ import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/films")
@@ -23,11 +30,31 @@ import java.util.Map;
 public class FilmController {
 
     private final FilmService filmService;
+    private final CatalogVersions catalogVersions;
 
+    // Условный GET: при совпадении If-None-Match ответ 304 без обращения к сервису.
+    // В списке есть число сеансов фильма, поэтому ETag зависит и от версии сеансов
     @GetMapping
-    public ResponseEntity<List<FilmDto>> getAllFilms() {
+    public ResponseEntity<List<FilmDto>> getAllFilms(WebRequest request) {
+        CatalogVersions.Stamp stamp = catalogVersions.stamp(CatalogVersions.Aggregate.FILMS,
+                CatalogVersions.Aggregate.SESSIONS);
+        if (request.checkNotModified(stamp.etag(), stamp.lastModified())) {
+            return null;
+        }
         List<FilmDto> films = filmService.getAllFilms();
-        return ResponseEntity.ok(films);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .body(films);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<FilmDto>> getFilmsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<FilmDto> page = filmService.getFilmsPage(cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/{id}")
@@ -46,6 +73,17 @@ public class FilmController {
         return ResponseEntity.ok(films);
     }
 
+    @GetMapping("/browse")
+    public ResponseEntity<FilmBrowseDto> browseFilms(
+            @RequestParam(required = false) Set<String> genre,
+            @RequestParam(required = false) Set<String> ageRating,
+            @RequestParam(required = false) Set<String> country,
+            @RequestParam(required = false) Set<String> duration) {
+
+        FilmBrowseDto browse = filmService.browseFilms(genre, ageRating, country, duration);
+        return ResponseEntity.ok(browse);
+    }
+
     @GetMapping("/now-playing")
     public ResponseEntity<List<FilmDto>> getNowPlayingFilms() {
         List<FilmDto> films = filmService.getNowPlayingFilms();
@@ -74,9 +112,24 @@ public class FilmController {
     }
 
     @GetMapping("/info")
-    public ResponseEntity<FilmInfoListDto> getCountriesAndDirectors() {
+    public ResponseEntity<FilmInfoListDto> getCountriesAndDirectors(WebRequest request) {
+        CatalogVersions.Stamp stamp = catalogVersions.stamp(CatalogVersions.Aggregate.FILMS);
+        if (request.checkNotModified(stamp.etag(), stamp.lastModified())) {
+            return null;
+        }
         FilmInfoListDto filmsInfoList = filmService.getCountriesAndDirectors();
-        return ResponseEntity.status(HttpStatus.OK).body(filmsInfoList);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .body(filmsInfoList);
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCatalogCacheStatistics() {
+        Map<String, Map<String, Object>> statistics = filmService.getCatalogCacheStatistics();
+        return ResponseEntity.ok(statistics);
     }
 
     @PostMapping
@@ -194,50 +247,8 @@ public class FilmController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
-        List<FilmDto> allFilms = filmService.getAllFilms();
-
-        List<FilmDto> filteredFilms = allFilms.stream()
-                .filter(film -> {
-                    boolean matches = true;
-
-                    if (title != null && !title.isEmpty()) {
-                        matches = matches && film.getTitle().toLowerCase().contains(title.toLowerCase());
-                    }
-
-                    if (genre != null && !genre.isEmpty()) {
-                        matches = matches && film.getGenres() != null &&
-                                film.getGenres().stream().anyMatch(g -> g.equalsIgnoreCase(genre));
-                    }
-
-                    if (ageRating != null && !ageRating.isEmpty()) {
-                        matches = matches && film.getAgeRating() != null &&
-                                film.getAgeRating().equalsIgnoreCase(ageRating);
-                    }
-
-                    if (minDuration != null) {
-                        matches = matches && film.getDuration() != null &&
-                                film.getDuration() >= minDuration;
-                    }
-
-                    if (maxDuration != null) {
-                        matches = matches && film.getDuration() != null &&
-                                film.getDuration() <= maxDuration;
-                    }
-
-                    if (startDate != null) {
-                        matches = matches && film.getReleaseDate() != null &&
-                                !film.getReleaseDate().isBefore(startDate);
-                    }
-
-                    if (endDate != null) {
-                        matches = matches && film.getReleaseDate() != null &&
-                                !film.getReleaseDate().isAfter(endDate);
-                    }
-
-                    return matches;
-                })
-                .collect(java.util.stream.Collectors.toList());
-
-        return ResponseEntity.ok(filteredFilms);
+        List<FilmDto> films = filmService.advancedSearch(title, genre, ageRating,
+                minDuration, maxDuration, startDate, endDate);
+        return ResponseEntity.ok(films);
     }
 }
\ No newline at end of file
@@ -2,11 +2,14 @@ package tp.project.cinema.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import tp.project.cinema.dto.HallDto;
 import tp.project.cinema.dto.SeatDto;
+import tp.project.cinema.service.CatalogVersions;
 import tp.project.cinema.service.HallService;
 
 import jakarta.validation.Valid;
@@ -22,11 +25,23 @@ import java.util.Map;
 public class HallController {
 
     private final HallService hallService;
+    private final CatalogVersions catalogVersions;
 
+    // Залы отдаются вместе с местами, сеансами и их бронированиями, а статусы сеансов зависят
+    // от текущего времени - ETag учитывает все эти версии и меняется раз в минуту
     @GetMapping
-    public ResponseEntity<List<HallDto>> getAllHalls() {
+    public ResponseEntity<List<HallDto>> getAllHalls(WebRequest request) {
+        CatalogVersions.Stamp stamp = catalogVersions.stampPerMinute(CatalogVersions.Aggregate.HALLS,
+                CatalogVersions.Aggregate.SESSIONS, CatalogVersions.Aggregate.BOOKINGS, CatalogVersions.Aggregate.FILMS);
+        if (request.checkNotModified(stamp.etag(), stamp.lastModified())) {
+            return null;
+        }
         List<HallDto> halls = hallService.getAllHalls();
-        return ResponseEntity.ok(halls);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .body(halls);
     }
 
     @GetMapping("/{id}")
@@ -1,9 +1,16 @@
 package tp.project.cinema.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tp.project.cinema.dto.SeatDto;
+import tp.project.cinema.dto.SeatHoldDto;
+import tp.project.cinema.security.AuthService;
+import tp.project.cinema.service.SeatHoldService;
+import tp.project.cinema.service.SeatMapEncoder;
 import tp.project.cinema.service.SeatService;
 
 import java.math.BigDecimal;
@@ -17,6 +24,8 @@ import java.util.Map;
 public class SeatController {
 
     private final SeatService seatService;
+    private final SeatHoldService seatHoldService;
+    private final AuthService authService;
 
     @GetMapping("/hall/{hallId}")
     public ResponseEntity<List<SeatDto>> getSeatsByHall(@PathVariable Short hallId) {
@@ -83,9 +92,7 @@ public class SeatController {
     public ResponseEntity<Map<String, Boolean>> checkSeatAvailability(
             @RequestParam Integer seatId,
             @RequestParam Integer sessionId) {
-        List<SeatDto> bookedSeats = seatService.getBookedSeatsForSession(sessionId);
-        boolean isAvailable = bookedSeats.stream()
-                .noneMatch(seat -> seat.getSeatId() != null && seat.getSeatId().equals(seatId));
+        boolean isAvailable = seatService.isSeatAvailable(seatId, sessionId);
 
         Map<String, Boolean> response = new HashMap<>();
         response.put("available", isAvailable);
@@ -96,10 +103,8 @@ public class SeatController {
     @GetMapping("/session/{sessionId}/available-count")
     public ResponseEntity<Map<String, Integer>> getAvailableSeatsCount(
             @PathVariable Integer sessionId) {
-        List<SeatDto> availableSeats = seatService.getAvailableSeatsForSession(sessionId);
-
         Map<String, Integer> response = new HashMap<>();
-        response.put("availableCount", availableSeats.size());
+        response.put("availableCount", seatService.countAvailableSeats(sessionId));
 
         return ResponseEntity.ok(response);
     }
@@ -117,7 +122,42 @@ public class SeatController {
         layout.put("sessionDateTime", seatsInfo.get("sessionDateTime"));
         layout.put("seats", seatsInfo.get("allSeats"));
 
-        return ResponseEntity.ok(layout);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(layout);
+    }
+
+    // Та же схема для мобильных клиентов: Accept: application/vnd.cinema.seatmap
+    @GetMapping(value = "/session/{sessionId}/layout", produces = SeatMapEncoder.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getCompactSessionHallLayout(
+            @PathVariable Integer sessionId) {
+        byte[] seatMap = seatService.getCompactSeatMap(sessionId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(seatMap);
+    }
+
+    // Места удерживаются за пользователем из токена; анонимные запросы отклоняются
+    @PostMapping("/holds")
+    public ResponseEntity<SeatHoldDto> holdSeats(@Valid @RequestBody SeatHoldDto holdDto) {
+        Long userId = authService.getCurrentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        SeatHoldDto hold = seatHoldService.hold(holdDto, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    @DeleteMapping("/holds")
+    public ResponseEntity<Void> releaseSeats(
+            @RequestParam Integer sessionId,
+            @RequestParam List<Integer> seatIds) {
+        Long userId = authService.getCurrentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        seatHoldService.release(sessionId, userId, seatIds);
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/hall/{hallId}/best")
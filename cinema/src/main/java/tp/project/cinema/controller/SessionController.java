@@ -3,11 +3,22 @@ package tp.project.cinema.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tp.project.cinema.dto.ScheduleConflictDto;
+import tp.project.cinema.dto.ScheduleRequestDto;
+import tp.project.cinema.dto.ScheduleResultDto;
+import tp.project.cinema.dto.SchedulePackingRequestDto;
+import tp.project.cinema.dto.SchedulePackingResultDto;
 import tp.project.cinema.dto.SeatDto;
 import tp.project.cinema.dto.SessionDto;
+import tp.project.cinema.service.CatalogVersions;
+import tp.project.cinema.service.SchedulePackingService;
 import tp.project.cinema.service.SessionService;
 
 import java.time.LocalDate;
@@ -22,6 +33,8 @@ import java.util.Map;
 public class SessionController {
 
     private final SessionService sessionService;
+    private final CatalogVersions catalogVersions;
+    private final SchedulePackingService schedulePackingService;
 
     @GetMapping
     public ResponseEntity<List<SessionDto>> getAllSessions() {
@@ -61,6 +74,13 @@ public class SessionController {
         return ResponseEntity.ok(availableSeats);
     }
 
+    // Живая схема зала: snapshot при подключении, затем изменения мест событиями seats
+    @GetMapping(value = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSeats(@PathVariable Integer id) {
+        SseEmitter emitter = sessionService.streamSeats(id);
+        return ResponseEntity.ok(emitter);
+    }
+
     @PostMapping
     public ResponseEntity<SessionDto> createSession(
             @Valid @RequestBody SessionDto sessionDto) {
@@ -68,6 +88,29 @@ public class SessionController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdSession);
     }
 
+    // Пакет сеансов (список и/или правила повторения): принятые создаются, отклонённые возвращаются с причинами
+    @PostMapping("/schedule")
+    public ResponseEntity<ScheduleResultDto> createSchedule(@Valid @RequestBody ScheduleRequestDto request) {
+        ScheduleResultDto result = sessionService.createSchedule(request);
+        HttpStatus status = result.getCreated().isEmpty() ? HttpStatus.OK : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    // Автоматическая раскладка фильмов по залам; по умолчанию dryRun - расписание только предлагается
+    @PostMapping("/schedule/pack")
+    public ResponseEntity<SchedulePackingResultDto> packSchedule(@Valid @RequestBody SchedulePackingRequestDto request) {
+        SchedulePackingResultDto result = schedulePackingService.pack(request);
+        HttpStatus status = result.isDryRun() || result.getSessions().isEmpty() ? HttpStatus.OK : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    // Проверка пакета сеансов перед созданием: все конфликты одним ответом, ничего не сохраняется
+    @PostMapping("/schedule/validate")
+    public ResponseEntity<List<ScheduleConflictDto>> validateSchedule(@Valid @RequestBody ScheduleRequestDto request) {
+        List<ScheduleConflictDto> conflicts = sessionService.validateSchedule(request);
+        return ResponseEntity.ok(conflicts);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<SessionDto> updateSession(
             @PathVariable Integer id,
@@ -88,10 +131,20 @@ public class SessionController {
         return ResponseEntity.ok(cancelledSession);
     }
 
+    // Список зависит от текущего времени (прошедшие сеансы выпадают) - ETag меняется раз в минуту
     @GetMapping("/available")
-    public ResponseEntity<List<SessionDto>> getAvailableSessions() {
+    public ResponseEntity<List<SessionDto>> getAvailableSessions(WebRequest request) {
+        CatalogVersions.Stamp stamp = catalogVersions.stampPerMinute(CatalogVersions.Aggregate.SESSIONS,
+                CatalogVersions.Aggregate.FILMS, CatalogVersions.Aggregate.HALLS);
+        if (request.checkNotModified(stamp.etag(), stamp.lastModified())) {
+            return null;
+        }
         List<SessionDto> sessions = sessionService.getAvailableSessions();
-        return ResponseEntity.ok(sessions);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(stamp.etag())
+                .lastModified(stamp.lastModified())
+                .body(sessions);
     }
 
     @GetMapping("/movie/{filmId}/date/{date}")
@@ -112,16 +165,8 @@ public class SessionController {
     public ResponseEntity<List<SessionDto>> getUpcomingSessions(
             @RequestParam(defaultValue = "7") Integer days) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime future = now.plusDays(days);
-
-        List<SessionDto> allSessions = sessionService.getAllSessions();
-        List<SessionDto> upcomingSessions = allSessions.stream()
-                .filter(s -> s.getDateTime() != null &&
-                        s.getDateTime().isAfter(now) &&
-                        s.getDateTime().isBefore(future))
-                .toList();
-
-        return ResponseEntity.ok(upcomingSessions);
+        List<SessionDto> sessions = sessionService.getSessionsBetween(now, now.plusDays(days));
+        return ResponseEntity.ok(sessions);
     }
 
     @GetMapping("/today")
@@ -129,47 +174,21 @@ public class SessionController {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime endOfDay = now.toLocalDate().atStartOfDay().plusDays(1);
 
-        List<SessionDto> sessions = sessionService.getAllSessions().stream()
-                .filter(s -> s.getDateTime() != null &&
-                        s.getDateTime().isAfter(now) &&
-                        s.getDateTime().isBefore(endOfDay))
-                .toList();
-
+        List<SessionDto> sessions = sessionService.getSessionsBetween(now, endOfDay);
         return ResponseEntity.ok(sessions);
     }
 
     @GetMapping("/tomorrow")
     public ResponseEntity<List<SessionDto>> getTomorrowSessions() {
         LocalDateTime tomorrow = LocalDateTime.now().plusDays(1).toLocalDate().atStartOfDay();
-        LocalDateTime endOfTomorrow = tomorrow.plusDays(1);
-
-        List<SessionDto> sessions = sessionService.getAllSessions().stream()
-                .filter(s -> s.getDateTime() != null &&
-                        s.getDateTime().isAfter(tomorrow) &&
-                        s.getDateTime().isBefore(endOfTomorrow))
-                .toList();
 
+        List<SessionDto> sessions = sessionService.getSessionsBetween(tomorrow, tomorrow.plusDays(1));
         return ResponseEntity.ok(sessions);
     }
 
     @GetMapping("/week")
     public ResponseEntity<Map<String, List<SessionDto>>> getWeekSessions() {
-        LocalDateTime now = LocalDateTime.now();
-        Map<String, List<SessionDto>> weekSchedule = new HashMap<>();
-
-        for (int i = 0; i < 7; i++) {
-            LocalDateTime dayStart = now.plusDays(i).toLocalDate().atStartOfDay();
-            LocalDateTime dayEnd = dayStart.plusDays(1);
-
-            List<SessionDto> daySessions = sessionService.getAllSessions().stream()
-                    .filter(s -> s.getDateTime() != null &&
-                            s.getDateTime().isAfter(dayStart) &&
-                            s.getDateTime().isBefore(dayEnd))
-                    .toList();
-
-            weekSchedule.put(dayStart.toLocalDate().toString(), daySessions);
-        }
-
+        Map<String, List<SessionDto>> weekSchedule = sessionService.getWeekSchedule();
         return ResponseEntity.ok(weekSchedule);
     }
 
@@ -178,12 +197,7 @@ public class SessionController {
             @RequestParam(defaultValue = "7") Integer days) {
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
 
-        List<SessionDto> allSessions = sessionService.getAllSessions();
-
-        SessionDto popularSession = allSessions.stream()
-                .filter(s -> s.getDateTime() != null && s.getDateTime().isAfter(startDate))
-                .findFirst()
-                .orElse(null);
+        SessionDto popularSession = sessionService.getFirstSessionAfter(startDate).orElse(null);
 
         Map<String, Object> response = new HashMap<>();
         if (popularSession != null) {
@@ -198,27 +212,7 @@ public class SessionController {
 
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getSessionsStatistics() {
-        List<SessionDto> allSessions = sessionService.getAllSessions();
-        LocalDateTime now = LocalDateTime.now();
-
-        long totalSessions = allSessions.size();
-        long upcomingSessions = allSessions.stream()
-                .filter(s -> s.getDateTime() != null && s.getDateTime().isAfter(now))
-                .count();
-        long pastSessions = allSessions.stream()
-                .filter(s -> s.getDateTime() != null && s.getDateTime().isBefore(now))
-                .count();
-        long cancelledSessions = allSessions.stream()
-                .filter(s -> "CANCELLED".equals(s.getStatus()))
-                .count();
-
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalSessions", totalSessions);
-        statistics.put("upcomingSessions", upcomingSessions);
-        statistics.put("pastSessions", pastSessions);
-        statistics.put("cancelledSessions", cancelledSessions);
-        statistics.put("activeSessions", upcomingSessions - cancelledSessions);
-
+        Map<String, Object> statistics = sessionService.getSessionsStatistics();
         return ResponseEntity.ok(statistics);
     }
 
@@ -229,38 +223,8 @@ public class SessionController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
-
-        List<SessionDto> allSessions = sessionService.getAllSessions();
-
-        List<SessionDto> filteredSessions = allSessions.stream()
-                .filter(session -> {
-                    boolean matches = true;
-
-                    if (filmId != null) {
-                        matches = matches && filmId.equals(session.getFilmId());
-                    }
-
-                    if (hallId != null) {
-                        matches = matches && hallId.equals(session.getHallId());
-                    }
-
-                    if (date != null && session.getDateTime() != null) {
-                        matches = matches && date.equals(session.getDateTime().toLocalDate());
-                    }
-
-                    if (startTime != null && session.getDateTime() != null) {
-                        matches = matches && !session.getDateTime().isBefore(startTime);
-                    }
-
-                    if (endTime != null && session.getDateTime() != null) {
-                        matches = matches && !session.getDateTime().isAfter(endTime);
-                    }
-
-                    return matches;
-                })
-                .toList();
-
-        return ResponseEntity.ok(filteredSessions);
+        List<SessionDto> sessions = sessionService.searchSessions(filmId, hallId, date, startTime, endTime);
+        return ResponseEntity.ok(sessions);
     }
 
     @GetMapping("/best-availability")
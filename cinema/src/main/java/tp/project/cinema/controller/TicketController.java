@@ -7,6 +7,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tp.project.cinema.dto.FilmDto;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.TicketDto;
 import tp.project.cinema.service.TicketService;
 
@@ -91,6 +92,16 @@ public class TicketController {
         return ResponseEntity.ok(tickets);
     }
 
+    @GetMapping("/date-range/page")
+    public ResponseEntity<CursorPage<TicketDto>> getTicketsByDateRangePage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<TicketDto> page = ticketService.getTicketsByDateRangePage(startDate, endDate, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<List<TicketDto>> getTicketsByStatus(@PathVariable String status) {
         List<TicketDto> tickets = ticketService.getTicketsByBookingStatus(status);
@@ -114,4 +125,12 @@ public class TicketController {
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/by-hall")
+    public ResponseEntity<Map<String, Long>> getTicketCountsByHall(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        Map<String, Long> tickets = ticketService.getTicketCountsByHall(start, end);
+        return ResponseEntity.ok(tickets);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.UserDto;
 import tp.project.cinema.dto.UserRegisterDto;
 import tp.project.cinema.service.UserService;
@@ -28,6 +29,14 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<UserDto>> getUsersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        CursorPage<UserDto> page = userService.getUsersPage(cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
         UserDto user = userService.getUserById(id);
@@ -2,12 +2,14 @@ package tp.project.cinema.dto;
 
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class BookingDto {
     private Long bookingId;
     private LocalDateTime bookingTime;
@@ -30,4 +32,24 @@ public class BookingDto {
     private String hallName;
     private LocalDateTime sessionDateTime;
     private Integer ticketCount;
+
+    // Проекция для списков бронирований (JPQL constructor expression), билеты заполняются отдельным запросом
+    public BookingDto(Long bookingId, LocalDateTime bookingTime, BigDecimal totalCost, Long userId,
+                      Integer sessionId, String status, String userName,
+                      String userSurname, String userEmail, String filmTitle, String hallName,
+                      LocalDateTime sessionDateTime, Long ticketCount) {
+        this.bookingId = bookingId;
+        this.bookingTime = bookingTime;
+        this.totalCost = totalCost;
+        this.userId = userId;
+        this.sessionId = sessionId != null ? sessionId.longValue() : null;
+        this.userName = userName + " " + userSurname;
+        this.userEmail = userEmail;
+        this.filmTitle = filmTitle;
+        this.hallName = hallName;
+        this.sessionDateTime = sessionDateTime;
+        this.ticketCount = ticketCount != null ? ticketCount.intValue() : 0;
+        // Бронь завершается и отменяется вместе с сеансом в SessionLifecycle
+        this.status = status;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package tp.project.cinema.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+// Результат фасетного поиска: фильмы под фильтрами и количество фильмов по каждому значению фасета
+@Data
+public class FilmBrowseDto {
+    private List<FilmDto> films;
+    private Integer total;
+    private Map<String, Map<String, Integer>> facets;
+}
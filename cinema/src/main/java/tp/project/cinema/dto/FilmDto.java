@@ -5,12 +5,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.hibernate.validator.constraints.URL;
 
 import java.time.LocalDate;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class FilmDto {
     private Long filmId;
 
@@ -51,4 +53,24 @@ public class FilmDto {
     private String countryName;
     private Integer sessionCount;
     private Boolean hasUpcomingSessions;
+
+    // Проекция для списков фильмов (JPQL constructor expression), жанры заполняются отдельным запросом
+    public FilmDto(Long filmId, String title, String description, LocalDate releaseDate, String posterUrl,
+                   String trailerUrl, Short duration, Integer directorId, String directorName,
+                   String directorSurname, Short countryId, String countryName, String ageRating,
+                   Long sessionCount) {
+        this.filmId = filmId;
+        this.title = title;
+        this.description = description;
+        this.releaseDate = releaseDate;
+        this.posterUrl = posterUrl;
+        this.trailerUrl = trailerUrl;
+        this.duration = duration != null && duration != 0 ? duration.intValue() : null;
+        this.directorId = directorId;
+        this.directorName = directorName + " " + directorSurname;
+        this.countryId = countryId;
+        this.countryName = countryName;
+        this.ageRating = ageRating;
+        this.sessionCount = sessionCount != null ? sessionCount.intValue() : 0;
+    }
 }
\ No newline at end of file
@@ -34,7 +34,8 @@ public interface BookingMapping {
     Booking toEntity(BookingDto dto);
 
 
-    @BeforeMapping
+    // Стоимость считается только для ответа, сущность при чтении не меняется
+    @AfterMapping
     default void calculateTotalCost(@MappingTarget BookingDto bookingDto, Booking entity) {
         BigDecimal totalCost = BigDecimal.ZERO;
         for (Ticket ticket : entity.getTicketList()) {
@@ -42,22 +43,6 @@ public interface BookingMapping {
                 totalCost = totalCost.add(ticket.getPrice());
             }
         }
-        entity.setTotalCost(totalCost);
         bookingDto.setTotalCost(totalCost);
     }
-
-    @AfterMapping
-    default void checkSessionStatus(@MappingTarget BookingDto bookingDto, Booking entity) {
-        if (!bookingDto.getStatus().equals("Отмена") && !bookingDto.getStatus().equals("Завершено")) {
-            String status = entity.getSession().getStatus();
-            switch (status) {
-                case "Отменен":
-                    bookingDto.setStatus("Отмена");
-                    break;
-                case "Завершен":
-                    bookingDto.setStatus("Завершено");
-                    break;
-            }
-        }
-    }
 }
\ No newline at end of file
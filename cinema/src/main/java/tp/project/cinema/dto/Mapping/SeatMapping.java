@@ -4,6 +4,7 @@ import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import tp.project.cinema.dto.SeatDto;
 import tp.project.cinema.model.Seat;
 
@@ -22,6 +23,19 @@ public interface SeatMapping {
     @Mapping(source = "hall.hallId", target = "hallId")
     SeatDto toDto(Seat entity);
 
+    // Место для схемы зала: без истории билетов
+    @Named("layout")
+    @Mapping(source = "seatType.typeName", target = "seatType")
+    @Mapping(source = "seatType.priceMultiplier", target = "priceMultiplier")
+    @Mapping(source = "hall.basePrice", target = "basePrice")
+    @Mapping(source = "hall.hallName", target = "hallName")
+    @Mapping(source = "hall.hallId", target = "hallId")
+    @Mapping(target = "ticketList", ignore = true)
+    @Mapping(target = "status", ignore = true)
+    @Mapping(target = "price", ignore = true)
+    @Mapping(target = "isSelected", ignore = true)
+    SeatDto toLayoutDto(Seat entity);
+
     @Mapping(target = "seatId", ignore = true)
     @Mapping(target = "ticketList", ignore = true)
     @Mapping(target = "seatType", ignore = true)
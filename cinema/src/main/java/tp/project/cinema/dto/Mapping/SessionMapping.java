@@ -1,14 +1,10 @@
 package tp.project.cinema.dto.Mapping;
 
-import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.MappingTarget;
 import tp.project.cinema.dto.SessionDto;
 import tp.project.cinema.model.Session;
 
-import java.time.LocalDateTime;
-
 @Mapper(componentModel = "spring", uses = {BookingMapping.class})
 public interface SessionMapping {
 
@@ -28,23 +24,4 @@ public interface SessionMapping {
     @Mapping(target = "hall", ignore = true)
     @Mapping(source = "dateTime", target = "dateTime")
     Session toEntity(SessionDto dto);
-
-
-    @AfterMapping
-    default void checkStatus(@MappingTarget SessionDto dto, Session session) {
-        if(!session.getStatus().equals("Завершен") && !session.getStatus().equals("Отменен")) {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime sessionDateTime = session.getDateTime();
-            LocalDateTime sessionEndTime = sessionDateTime.plusMinutes(session.getFilm().getDuration());
-
-            if(sessionEndTime.isBefore(now)) {
-                session.setStatus("Завершен");
-                dto.setStatus("Завершен");
-            }
-            else if(sessionDateTime.isBefore(now) && sessionEndTime.isAfter(now)) {
-                session.setStatus("Активен");
-                dto.setStatus("Активен");
-            }
-        }
-    }
 }
\ No newline at end of file
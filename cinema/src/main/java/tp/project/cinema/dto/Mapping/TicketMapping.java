@@ -45,10 +45,11 @@ public interface TicketMapping {
         }
     }
 
-    @BeforeMapping
+    // Цена считается только для ответа, сущность при чтении не меняется
+    @AfterMapping
     default void calculatePrice(Ticket ticket, @MappingTarget TicketDto ticketDto) {
         if(ticket.getPrice() == null || ticket.getPrice().equals(BigDecimal.valueOf(0))) {
-            ticket.setPrice(
+            ticketDto.setPrice(
                     ticket.getSeat().getHall().getBasePrice()
                             .multiply(ticket.getSeat().getSeatType().getPriceMultiplier())
             );
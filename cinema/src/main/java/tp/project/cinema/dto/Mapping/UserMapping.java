@@ -22,6 +22,13 @@ public interface UserMapping {
     @Mapping(expression = "java(entity.getAge())", target = "age")
     UserDto toDto(User entity);
 
+    // Для постраничных списков: без бронирований пользователя
+    @Named("listItem")
+    @Mapping(source = "userId", target = "userId")
+    @Mapping(expression = "java(entity.getAge())", target = "age")
+    @Mapping(target = "bookingList", ignore = true)
+    UserDto toListItemDto(User entity);
+
     @AfterMapping
     default void afterEntityMapping(@MappingTarget User entity, UserRegisterDto dto) {
         if (entity.getRole() == null) {
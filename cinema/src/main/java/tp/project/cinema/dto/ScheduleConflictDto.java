@@ -0,0 +1,20 @@
+package tp.project.cinema.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Ошибка в пакете сеансов: index - номер сеанса в запросе (с нуля).
+// conflictingSessionIds - пересекающиеся сохранённые сеансы, conflictingIndexes - сеансы этого же запроса
+@Data
+public class ScheduleConflictDto {
+    private Integer index;
+    private Long filmId;
+    private Short hallId;
+    private LocalDateTime dateTime;
+    private String message;
+    private List<Integer> conflictingSessionIds = new ArrayList<>();
+    private List<Integer> conflictingIndexes = new ArrayList<>();
+}
@@ -0,0 +1,53 @@
+package tp.project.cinema.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Автоматическая раскладка сеансов на период [from, to] в часы работы [opensAt, closesAt).
+// hallIds не указаны - используются все доступные залы; dryRun - только предложить расписание, не сохраняя
+@Data
+public class SchedulePackingRequestDto {
+
+    @NotNull(message = "Начало периода обязательно")
+    private LocalDate from;
+
+    @NotNull(message = "Конец периода обязателен")
+    private LocalDate to;
+
+    @NotNull(message = "Время открытия обязательно")
+    private LocalTime opensAt;
+
+    @NotNull(message = "Время закрытия обязательно")
+    private LocalTime closesAt;
+
+    @Valid
+    @NotEmpty(message = "Должен быть указан хотя бы один фильм")
+    private List<FilmDemand> films;
+
+    private List<Short> hallIds;
+
+    // Начала сеансов выравниваются на этот шаг от открытия
+    @NotNull(message = "Шаг обязателен")
+    @Positive(message = "Шаг должен быть положительным")
+    private Integer stepMinutes = 5;
+
+    private boolean dryRun = true;
+
+    // Вес - относительный спрос на фильм: места делятся между фильмами пропорционально весам
+    @Data
+    public static class FilmDemand {
+
+        @NotNull(message = "ID фильма обязателен")
+        private Long filmId;
+
+        @Positive(message = "Вес должен быть положительным")
+        private Double weight = 1.0;
+    }
+}
@@ -0,0 +1,19 @@
+package tp.project.cinema.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Предложенное (dryRun) или созданное расписание.
+// seatsByFilm - места, выделенные фильму; hallUtilization - доля часов работы залов, занятая показами (без уборки)
+@Data
+public class SchedulePackingResultDto {
+    private boolean dryRun;
+    private List<SessionDto> sessions = new ArrayList<>();
+    private List<ScheduleConflictDto> conflicts = new ArrayList<>();
+    private Map<Long, Long> seatsByFilm = new LinkedHashMap<>();
+    private double hallUtilization;
+}
@@ -0,0 +1,47 @@
+package tp.project.cinema.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Пакет сеансов: явные сеансы (filmId, hallId, dateTime) и правила повторения.
+// Сеансы пакета нумеруются так: сначала sessions по порядку, затем правила - по дням и по времени
+@Data
+public class ScheduleRequestDto {
+
+    @Valid
+    private List<SessionDto> sessions = new ArrayList<>();
+
+    @Valid
+    private List<Recurrence> recurrences = new ArrayList<>();
+
+    // Фильм в зале каждый день периода [from, to] в указанное время; daysOfWeek - только эти дни недели
+    @Data
+    public static class Recurrence {
+
+        @NotNull(message = "ID фильма обязателен")
+        private Long filmId;
+
+        @NotNull(message = "ID зала обязателен")
+        private Short hallId;
+
+        @NotNull(message = "Начало периода обязательно")
+        private LocalDate from;
+
+        @NotNull(message = "Конец периода обязателен")
+        private LocalDate to;
+
+        @NotEmpty(message = "Должно быть указано хотя бы одно время сеанса")
+        private List<LocalTime> times;
+
+        private Set<DayOfWeek> daysOfWeek;
+    }
+}
@@ -0,0 +1,13 @@
+package tp.project.cinema.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Результат создания пакета: созданные сеансы и отклонённые сеансы пакета с причинами
+@Data
+public class ScheduleResultDto {
+    private List<SessionDto> created = new ArrayList<>();
+    private List<ScheduleConflictDto> conflicts = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package tp.project.cinema.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class SeatHoldDto {
+
+    @NotNull(message = "ID сеанса обязателен")
+    private Integer sessionId;
+
+    @NotEmpty(message = "Должно быть выбрано хотя бы одно место")
+    private List<Integer> seatIds;
+
+    private LocalDateTime expiresAt;
+}
@@ -2,12 +2,15 @@ package tp.project.cinema.dto;
 
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 @Data
+@NoArgsConstructor
 public class SessionDto {
     private Integer sessionId;
     private String status;
@@ -26,4 +29,19 @@ public class SessionDto {
     private Integer duration;
     private Double basePrice;
     private Map<String, Object> seatInfo;
+
+    // Проекция для списков сеансов (JPQL constructor expression), список бронирований не заполняется
+    public SessionDto(Integer sessionId, String status, LocalDateTime dateTime, Long filmId, Short hallId,
+                      String filmTitle, String hallName, Short duration, BigDecimal basePrice) {
+        this.sessionId = sessionId;
+        this.dateTime = dateTime;
+        this.filmId = filmId;
+        this.hallId = hallId;
+        this.filmTitle = filmTitle;
+        this.hallName = hallName;
+        this.duration = duration != null ? duration.intValue() : 0;
+        this.basePrice = basePrice != null ? basePrice.doubleValue() : null;
+        // Статус ведёт SessionLifecycle, при чтении он не пересчитывается
+        this.status = status;
+    }
 }
\ No newline at end of file
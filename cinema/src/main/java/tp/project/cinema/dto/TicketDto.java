@@ -2,11 +2,13 @@ package tp.project.cinema.dto;
 
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class TicketDto {
     private Long ticketId;
     private LocalDateTime creationDate;
@@ -26,4 +28,23 @@ public class TicketDto {
     private String filmTitle;
     private LocalDateTime sessionDateTime;
     private String status;
+
+    // Проекция для списков билетов (JPQL constructor expression)
+    public TicketDto(Long ticketId, LocalDateTime creationDate, BigDecimal price, String ticketCode,
+                     Integer seatId, Long bookingId, String seatType, Short rowNumber, Short seatNumber,
+                     String hallName, String filmTitle, LocalDateTime sessionDateTime, String status) {
+        this.ticketId = ticketId;
+        this.creationDate = creationDate;
+        this.price = price;
+        this.ticketCode = ticketCode;
+        this.seatId = seatId;
+        this.bookingId = bookingId;
+        this.seatType = seatType;
+        this.rowNumber = rowNumber;
+        this.seatNumber = seatNumber;
+        this.hallName = hallName;
+        this.filmTitle = filmTitle;
+        this.sessionDateTime = sessionDateTime;
+        this.status = status;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package tp.project.cinema.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
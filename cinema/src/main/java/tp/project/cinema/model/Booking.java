@@ -11,10 +11,11 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "booking")
+@Table(name = "booking", indexes = @Index(name = "idx_booking_time_id", columnList = "booking_time, booking_id"))
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     @Column(name = "booking_id")
     private Long bookingId;
 
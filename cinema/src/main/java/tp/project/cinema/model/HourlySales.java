@@ -0,0 +1,38 @@
+package tp.project.cinema.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Продажи сеанса за час: билеты по времени создания, брони по времени бронирования.
+// Строки пересчитывает SalesRollup, зал и фильм берутся из сеанса при чтении
+@Data
+@Entity
+@Table(name = "hourly_sales", uniqueConstraints = @UniqueConstraint(
+        name = "uk_hourly_sales_hour_session", columnNames = {"bucket_hour", "session_id"}))
+public class HourlySales {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "hourly_sales_id")
+    private Long hourlySalesId;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private LocalDateTime bucketHour;
+
+    @Column(name = "session_id", nullable = false)
+    private Integer sessionId;
+
+    @Column(name = "tickets", nullable = false)
+    private long tickets;
+
+    @Column(name = "ticket_revenue", precision = 14, scale = 2, nullable = false)
+    private BigDecimal ticketRevenue;
+
+    @Column(name = "bookings", nullable = false)
+    private long bookings;
+
+    @Column(name = "booking_revenue", precision = 14, scale = 2, nullable = false)
+    private BigDecimal bookingRevenue;
+}
@@ -0,0 +1,20 @@
+package tp.project.cinema.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Уже свёрнутый час, продажи которого изменились (удаление билета, пересчёт стоимости брони).
+// markedAt меняется при каждой пометке: SalesRollup удаляет отметку, только если её не обновили во время пересчёта
+@Data
+@Entity
+@Table(name = "hourly_sales_dirty")
+public class HourlySalesDirty {
+    @Id
+    @Column(name = "bucket_hour")
+    private LocalDateTime bucketHour;
+
+    @Column(name = "marked_at", nullable = false)
+    private LocalDateTime markedAt;
+}
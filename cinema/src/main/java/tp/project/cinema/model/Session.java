@@ -9,10 +9,14 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "session")
+@Table(name = "session", indexes = {
+        @Index(name = "idx_session_date_time", columnList = "date_time"),
+        @Index(name = "idx_session_hall_date_time", columnList = "hall_id, date_time")
+})
 public class Session {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "session_seq")
+    @SequenceGenerator(name = "session_seq", sequenceName = "session_seq", allocationSize = 50)
     @Column(name = "session_id")
     private int sessionId;
 
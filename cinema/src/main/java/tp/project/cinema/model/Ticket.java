@@ -9,10 +9,11 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "ticket")
+@Table(name = "ticket", indexes = @Index(name = "idx_ticket_creation_date_id", columnList = "creation_date, ticket_id"))
 public class Ticket {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", allocationSize = 50)
     @Column(name = "ticket_id")
     private Long ticketId;
 
@@ -1,31 +1,47 @@
 package tp.project.cinema.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tp.project.cinema.dto.BookingDto;
 import tp.project.cinema.model.Booking;
+import tp.project.cinema.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
+    List<Booking> findAll();
+
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     List<Booking> findByUserUserId(Long userId);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     List<Booking> findBySessionSessionId(Integer sessionId);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     List<Booking> findByBookingTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     List<Booking> findByBookingStatusStatusName(String statusName);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     @Query("SELECT b FROM Booking b WHERE b.user.userId = :userId AND b.bookingTime >= :startDate")
     List<Booking> findUserBookingsFromDate(
             @Param("userId") Long userId,
             @Param("startDate") LocalDateTime startDate);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     @Query("SELECT b FROM Booking b WHERE b.session.sessionId = :sessionId " +
             "AND b.bookingStatus.statusName != 'CANCELLED'")
     List<Booking> findActiveBookingsBySession(@Param("sessionId") Integer sessionId);
@@ -34,12 +50,14 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "AND b.bookingStatus.statusName = 'CONFIRMED'")
     long countConfirmedBookingsBySession(@Param("sessionId") Integer sessionId);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     @Query("SELECT b FROM Booking b WHERE b.user.userId = :userId " +
             "AND b.bookingStatus.statusName = :status")
     List<Booking> findUserBookingsByStatus(
             @Param("userId") Long userId,
             @Param("status") String status);
 
+    @EntityGraph(attributePaths = {"user", "session", "session.film", "session.hall", "bookingStatus"})
     @Query("SELECT b FROM Booking b WHERE b.totalCost > :minAmount")
     List<Booking> findBookingsWithTotalCostGreaterThan(@Param("minAmount") Double minAmount);
 
@@ -52,13 +70,61 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT b FROM Booking b JOIN b.ticketList t WHERE t.ticketId = :ticketId")
     Optional<Booking> findByTicketId(@Param("ticketId") Long ticketId);
 
-    @Query("SELECT SUM(b.totalCost) FROM Booking b WHERE b.bookingTime BETWEEN :start AND :end")
-    Double getTotalRevenueForPeriod(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
+    // Периоды считает SalesRollup: запрос читает только неполные часы по краям периода [from, to)
+    @Query("SELECT COALESCE(SUM(b.totalCost), 0), COUNT(b) FROM Booking b " +
+            "WHERE b.bookingTime >= :from AND b.bookingTime < :to")
+    List<Object[]> sumCostsBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 
     @Query("SELECT COUNT(DISTINCT b.user.userId) FROM Booking b WHERE b.bookingTime BETWEEN :start AND :end")
     Long countUniqueUsersForPeriod(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
-}
\ No newline at end of file
+
+    // Проекции для списков. Стоимость и количество билетов считаются по билетам брони
+    String LIST_ITEM = "SELECT new tp.project.cinema.dto.BookingDto(b.bookingId, b.bookingTime, " +
+            "COALESCE((SELECT SUM(t.price) FROM Ticket t WHERE t.booking = b), 0), u.userId, s.sessionId, " +
+            "bs.statusName, u.name, u.surname, u.email, f.title, h.hallName, s.dateTime, " +
+            "(SELECT COUNT(t) FROM Ticket t WHERE t.booking = b)) " +
+            "FROM Booking b JOIN b.user u JOIN b.session s JOIN s.film f JOIN s.hall h JOIN b.bookingStatus bs ";
+
+    @Query(LIST_ITEM + "ORDER BY b.bookingId")
+    List<BookingDto> findAllListItems();
+
+    @Query(LIST_ITEM + "WHERE u.userId = :userId ORDER BY b.bookingId")
+    List<BookingDto> findListItemsByUser(@Param("userId") Long userId);
+
+    @Query(LIST_ITEM + "WHERE s.sessionId = :sessionId ORDER BY b.bookingId")
+    List<BookingDto> findListItemsBySession(@Param("sessionId") Integer sessionId);
+
+    @Query(LIST_ITEM + "WHERE (:afterId IS NULL OR b.bookingId > :afterId) ORDER BY b.bookingId")
+    List<BookingDto> findListItemsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Ключ страницы - (время бронирования, ID)
+    @Query(LIST_ITEM + "WHERE b.bookingTime BETWEEN :start AND :end " +
+            "AND (:afterTime IS NULL OR b.bookingTime > :afterTime " +
+            "OR (b.bookingTime = :afterTime AND b.bookingId > :afterId)) " +
+            "ORDER BY b.bookingTime, b.bookingId")
+    List<BookingDto> findListItemsInPeriodAfter(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    // Статус брони следует за сеансом; отменённые и завершённые брони не меняются
+    String OPEN_BOOKING = "b.bookingStatus.bookingStatusId NOT IN (SELECT bs.bookingStatusId FROM BookingStatus bs " +
+            "WHERE bs.statusName IN ('Отмена', 'CANCELLED', 'Завершено'))";
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = :status WHERE b.session.sessionId IN :sessionIds AND " + OPEN_BOOKING)
+    int updateOpenStatusBySessions(@Param("sessionIds") Collection<Integer> sessionIds,
+                                   @Param("status") BookingStatus status);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.bookingStatus = :status WHERE b.session.sessionId IN " +
+            "(SELECT s.sessionId FROM Session s WHERE s.status IN :sessionStatuses) AND " + OPEN_BOOKING)
+    int updateOpenStatusBySessionStatus(@Param("sessionStatuses") Collection<String> sessionStatuses,
+                                        @Param("status") BookingStatus status);
+}
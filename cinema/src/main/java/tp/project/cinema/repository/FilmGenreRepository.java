@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tp.project.cinema.model.FilmGenre;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,4 +38,11 @@ public interface FilmGenreRepository extends JpaRepository<FilmGenre, Long> {
             @Param("genreId") Short genreId);
 
     boolean existsByFilmFilmIdAndGenreGenreId(Long filmId, Short genreId);
-}
\ No newline at end of file
+
+    // Пары (ID фильма, название жанра) для набора фильмов
+    @Query("SELECT fg.film.filmId, fg.genre.genreName FROM FilmGenre fg WHERE fg.film.filmId IN :filmIds")
+    List<Object[]> findGenreNamesByFilmIds(@Param("filmIds") Collection<Long> filmIds);
+
+    @Query("SELECT fg.film.filmId, fg.genre.genreName FROM FilmGenre fg")
+    List<Object[]> findAllGenreNames();
+}
@@ -1,12 +1,15 @@
 package tp.project.cinema.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tp.project.cinema.dto.FilmDto;
 import tp.project.cinema.model.Film;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +48,15 @@ public interface FilmRepository extends JpaRepository<Film, Long> {
             "OR LOWER(f.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Film> searchByKeyword(@Param("keyword") String keyword);
 
+    // Полнотекстовый поиск (film.search.mode: fulltext): запрос разбирается в обеих конфигурациях,
+    // совпадения ищутся по GIN-индексу и сортируются по ts_rank
+    @Query(value = "SELECT f.film_id FROM film f " +
+            "CROSS JOIN (SELECT websearch_to_tsquery('russian', :keyword) || " +
+            "websearch_to_tsquery('english', :keyword) AS q) tsq " +
+            "WHERE f.search_vector @@ tsq.q " +
+            "ORDER BY ts_rank(f.search_vector, tsq.q) DESC, f.film_id", nativeQuery = true)
+    List<Long> searchIdsByFullText(@Param("keyword") String keyword);
+
     @Query("SELECT f FROM Film f JOIN f.sessionList s WHERE s.sessionId = :sessionId")
     Optional<Film> findBySessionId(@Param("sessionId") Integer sessionId);
 
@@ -53,4 +65,27 @@ public interface FilmRepository extends JpaRepository<Film, Long> {
 
     @Query("SELECT f FROM Film f WHERE f.releaseDate <= CURRENT_DATE ORDER BY f.releaseDate DESC")
     List<Film> findReleasedFilms();
-}
\ No newline at end of file
+
+    // Проекция для списка фильмов, жанры читаются отдельным запросом
+    String LIST_ITEM = "SELECT new tp.project.cinema.dto.FilmDto(f.filmId, f.title, f.description, f.releaseDate, " +
+            "f.posterUrl, f.trailerUrl, f.duration, d.directorId, d.name, d.surname, c.countryId, c.countryName, " +
+            "r.ratingValue, (SELECT COUNT(s) FROM Session s WHERE s.film = f)) " +
+            "FROM Film f JOIN f.director d JOIN f.country c JOIN f.ageRating r ";
+
+    @Query(LIST_ITEM + "ORDER BY f.filmId")
+    List<FilmDto> findAllListItems();
+
+    @Query(LIST_ITEM + "WHERE (:afterId IS NULL OR f.filmId > :afterId) ORDER BY f.filmId")
+    List<FilmDto> findListItemsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(LIST_ITEM + "WHERE f.filmId IN :filmIds AND f.releaseDate <= CURRENT_DATE ORDER BY f.releaseDate DESC")
+    List<FilmDto> findReleasedListItemsByIds(@Param("filmIds") Collection<Long> filmIds);
+
+    @Query(LIST_ITEM + "WHERE f.filmId IN :filmIds ORDER BY f.filmId")
+    List<FilmDto> findListItemsByIds(@Param("filmIds") Collection<Long> filmIds);
+
+    // Поля фильмов для фасетного поиска: ID, возрастной рейтинг, страна, длительность
+    @Query("SELECT f.filmId, r.ratingValue, c.countryName, f.duration " +
+            "FROM Film f JOIN f.ageRating r JOIN f.country c ORDER BY f.filmId")
+    List<Object[]> findFacetColumns();
+}
@@ -1,6 +1,8 @@
 package tp.project.cinema.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -8,6 +10,7 @@ import tp.project.cinema.model.Hall;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +19,12 @@ public interface HallRepository extends JpaRepository<Hall, Short> {
 
     Optional<Hall> findByHallName(String hallName);
 
+    // SELECT ... FOR UPDATE: строки залов заблокированы до конца транзакции, сеансы одного зала
+    // проверяются и сохраняются по очереди. Блокировки берутся по возрастанию ID - пакеты не ждут друг друга по кругу
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hall h WHERE h.hallId IN :hallIds ORDER BY h.hallId")
+    List<Hall> lockAllById(@Param("hallIds") Collection<Short> hallIds);
+
     List<Hall> findByHallNameContainingIgnoreCase(String hallName);
 
     List<Hall> findByStatus(String status);
@@ -0,0 +1,27 @@
+package tp.project.cinema.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tp.project.cinema.model.HourlySalesDirty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HourlySalesDirtyRepository extends JpaRepository<HourlySalesDirty, LocalDateTime> {
+
+    // Пометка в транзакции изменения: становится видна пересчёту вместе с самим изменением
+    @Modifying
+    @Query(value = "INSERT INTO hourly_sales_dirty (bucket_hour, marked_at) VALUES (:hour, clock_timestamp()) " +
+            "ON CONFLICT (bucket_hour) DO UPDATE SET marked_at = EXCLUDED.marked_at", nativeQuery = true)
+    void mark(@Param("hour") LocalDateTime hour);
+
+    List<HourlySalesDirty> findByBucketHourBeforeOrderByBucketHour(LocalDateTime hour);
+
+    @Modifying
+    @Query("DELETE FROM HourlySalesDirty d WHERE d.bucketHour = :hour AND d.markedAt = :markedAt")
+    void deleteMarked(@Param("hour") LocalDateTime hour, @Param("markedAt") LocalDateTime markedAt);
+}
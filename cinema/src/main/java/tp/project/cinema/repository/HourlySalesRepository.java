@@ -0,0 +1,53 @@
+package tp.project.cinema.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tp.project.cinema.model.HourlySales;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HourlySalesRepository extends JpaRepository<HourlySales, Long> {
+
+    // [выручка билетов, билеты, стоимость броней, брони] за часы [from, to)
+    @Query("SELECT COALESCE(SUM(h.ticketRevenue), 0), COALESCE(SUM(h.tickets), 0), " +
+            "COALESCE(SUM(h.bookingRevenue), 0), COALESCE(SUM(h.bookings), 0) " +
+            "FROM HourlySales h WHERE h.bucketHour >= :from AND h.bucketHour < :to")
+    List<Object[]> sumBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT hl.hallName, SUM(h.tickets) FROM HourlySales h JOIN Session s ON s.sessionId = h.sessionId " +
+            "JOIN s.hall hl WHERE h.bucketHour >= :from AND h.bucketHour < :to AND h.tickets > 0 " +
+            "GROUP BY hl.hallName")
+    List<Object[]> countTicketsByHallBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MAX(h.bucketHour) FROM HourlySales h")
+    LocalDateTime findLastHour();
+
+    @Modifying
+    @Query("DELETE FROM HourlySales h WHERE h.bucketHour >= :from AND h.bucketHour < :to")
+    void deleteBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Пересчёт часов [from, to) из билетов и броней одним INSERT ... SELECT
+    @Modifying
+    @Query(value = "INSERT INTO hourly_sales (bucket_hour, session_id, tickets, ticket_revenue, bookings, booking_revenue) " +
+            "SELECT bucket_hour, session_id, SUM(tickets), SUM(ticket_revenue), SUM(bookings), SUM(booking_revenue) " +
+            "FROM (" +
+            "SELECT date_trunc('hour', t.creation_date) AS bucket_hour, b.session_id AS session_id, " +
+            "COUNT(*) AS tickets, COALESCE(SUM(t.price), 0) AS ticket_revenue, 0 AS bookings, 0 AS booking_revenue " +
+            "FROM ticket t JOIN booking b ON b.booking_id = t.booking_id " +
+            "WHERE t.creation_date >= :from AND t.creation_date < :to GROUP BY 1, 2 " +
+            "UNION ALL " +
+            "SELECT date_trunc('hour', b.booking_time), b.session_id, 0, 0, COUNT(*), COALESCE(SUM(b.total_cost), 0) " +
+            "FROM booking b WHERE b.booking_time >= :from AND b.booking_time < :to GROUP BY 1, 2" +
+            ") sales GROUP BY bucket_hour, session_id", nativeQuery = true)
+    void rollUp(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Самая ранняя продажа - начало первичной свёртки
+    @Query(value = "SELECT LEAST((SELECT MIN(creation_date) FROM ticket), (SELECT MIN(booking_time) FROM booking))",
+            nativeQuery = true)
+    LocalDateTime findFirstSaleTime();
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 import tp.project.cinema.model.Hall;
 import tp.project.cinema.model.Seat;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -70,6 +71,14 @@ public interface SeatRepository extends JpaRepository<Seat, Integer> {
             @Param("start") Integer start,
             @Param("end") Integer end);
 
+    @Query("SELECT s FROM Seat s JOIN FETCH s.seatType JOIN FETCH s.hall WHERE s.hall.hallId = :hallId " +
+            "ORDER BY s.rowNumber, s.seatNumber")
+    List<Seat> findLayoutByHall(@Param("hallId") Short hallId);
+
+    // Места для выпуска билетов: вместе с залом и типом места (нужны для расчёта цены)
+    @Query("SELECT s FROM Seat s JOIN FETCH s.seatType JOIN FETCH s.hall WHERE s.seatId IN :seatIds")
+    List<Seat> findAllForTickets(@Param("seatIds") Collection<Integer> seatIds);
+
     // Добавить этот метод если его нет:
     @Query("SELECT COUNT(s) > 0 FROM Seat s WHERE s.hall.hallId = :hallId")
     boolean existsSeatsByHallId(@Param("hallId") Short hallId);
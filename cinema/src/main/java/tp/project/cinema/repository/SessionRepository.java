@@ -1,31 +1,46 @@
 package tp.project.cinema.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tp.project.cinema.dto.SessionDto;
 import tp.project.cinema.model.Film;
 import tp.project.cinema.model.Session;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SessionRepository extends JpaRepository<Session, Integer> {
 
+    // Списки отдаются через маппер, поэтому связи для DTO загружаются сразу, а не по одной на строку
+    @Override
+    @EntityGraph(attributePaths = {"film", "hall"})
+    List<Session> findAll();
+
+    @EntityGraph(attributePaths = {"film", "hall"})
     List<Session> findByFilmFilmId(Long filmId);
 
+    @EntityGraph(attributePaths = {"film", "hall"})
     List<Session> findByHallHallId(Short hallId);
 
+    @EntityGraph(attributePaths = {"film", "hall"})
     List<Session> findByDateTimeAfter(LocalDateTime dateTime);
 
     List<Session> findByDateTimeBefore(LocalDateTime dateTime);
 
+    @EntityGraph(attributePaths = {"film", "hall"})
     List<Session> findByDateTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    @EntityGraph(attributePaths = {"film", "hall"})
     List<Session> findByStatus(String status);
 
+    @EntityGraph(attributePaths = {"film", "hall"})
     @Query("SELECT s FROM Session s WHERE s.film.filmId = :filmId AND s.dateTime >= CURRENT_DATE")
     List<Session> findUpcomingSessionsByFilm(@Param("filmId") Long filmId);
 
@@ -35,6 +50,7 @@ public interface SessionRepository extends JpaRepository<Session, Integer> {
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    @EntityGraph(attributePaths = {"film", "hall"})
     @Query("SELECT s FROM Session s WHERE s.dateTime >= :date ORDER BY s.dateTime ASC")
     List<Session> findSessionsFromDate(@Param("date") LocalDateTime date);
 
@@ -46,30 +62,107 @@ public interface SessionRepository extends JpaRepository<Session, Integer> {
     @Query("SELECT COUNT(s) FROM Session s WHERE s.film.filmId = :filmId")
     long countByFilmId(@Param("filmId") Long filmId);
 
-    @Query("SELECT s FROM Session s WHERE s.hall.hallId = :hallId " +
-            "AND s.dateTime BETWEEN :startTime AND :endTime " +
-            "AND s.status != 'Отменен'")
-    List<Session> findConflictingSessions(
-            @Param("hallId") Short hallId,
-            @Param("startTime") LocalDateTime startTime,
-            @Param("endTime") LocalDateTime endTime);
-
-
-    @Query("SELECT s FROM Session s WHERE s.hall.hallId = :hallId " +
-            "AND s.dateTime < :startTime " +
-            "AND s.status != 'CANCELLED' " +
-            "ORDER BY s.dateTime DESC " +
-            "LIMIT 1")
-    Optional<Session> findPreviousSession(
-            @Param("hallId") Short hallId,
-            @Param("startTime") LocalDateTime startTime);
-
+    // Занятость зала для HallSchedule: [sessionId, dateTime, длительность фильма] неотменённых сеансов
+    @Query("SELECT s.sessionId, s.dateTime, f.duration FROM Session s JOIN s.film f " +
+            "WHERE s.hall.hallId = :hallId AND s.dateTime IS NOT NULL " +
+            "AND (s.status IS NULL OR s.status NOT IN ('Отменен', 'CANCELLED'))")
+    List<Object[]> findHallOccupancy(@Param("hallId") Short hallId);
+
+    // Неотменённые сеансы зала, пересекающиеся с [from, to) с учётом уборки, - та же строка, что у findHallOccupancy.
+    // Проверка конфликтов сверяет по нему индекс HallSchedule с закоммиченными данными
+    @Query(value = "SELECT s.session_id, s.date_time, f.duration FROM session s JOIN film f ON f.film_id = s.film_id " +
+            "WHERE s.hall_id = :hallId AND s.date_time < :to " +
+            "AND s.date_time + make_interval(mins => f.duration + :cleaningMinutes) > :from " +
+            "AND (s.status IS NULL OR s.status NOT IN ('Отменен', 'CANCELLED'))", nativeQuery = true)
+    List<Object[]> findHallOccupancyBetween(@Param("hallId") Short hallId, @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("cleaningMinutes") int cleaningMinutes);
+
+    @EntityGraph(attributePaths = {"film", "hall"})
     @Query("SELECT s FROM Session s WHERE s.dateTime BETWEEN :start AND :end " +
             "ORDER BY s.dateTime, s.hall.hallName")
     List<Session> findSessionsForSchedule(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
+    @Query("SELECT s FROM Session s JOIN FETCH s.film JOIN FETCH s.hall WHERE s.sessionId = :sessionId")
+    Optional<Session> findWithFilmAndHall(@Param("sessionId") Integer sessionId);
+
     @Query("SELECT DISTINCT s.film FROM Session s WHERE s.dateTime >= CURRENT_DATE")
     List<Film> findFilmsWithUpcomingSessions();
-}
\ No newline at end of file
+
+    // Проекции для списков: строки DTO читаются напрямую, без загрузки сущностей
+    String LIST_ITEM = "SELECT new tp.project.cinema.dto.SessionDto(s.sessionId, s.status, s.dateTime, " +
+            "f.filmId, h.hallId, f.title, h.hallName, f.duration, h.basePrice) " +
+            "FROM Session s JOIN s.film f JOIN s.hall h ";
+
+    @Query(LIST_ITEM + "ORDER BY s.dateTime")
+    List<SessionDto> findAllListItems();
+
+    @Query(LIST_ITEM + "WHERE f.filmId = :filmId ORDER BY s.dateTime")
+    List<SessionDto> findListItemsByFilm(@Param("filmId") Long filmId);
+
+    @Query(LIST_ITEM + "WHERE h.hallId = :hallId ORDER BY s.dateTime")
+    List<SessionDto> findListItemsByHall(@Param("hallId") Short hallId);
+
+    @Query(LIST_ITEM + "WHERE s.dateTime >= :start AND s.dateTime < :end ORDER BY s.dateTime")
+    List<SessionDto> findListItemsBetween(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    @Query(LIST_ITEM + "WHERE f.filmId = :filmId AND s.dateTime > :start AND s.dateTime < :end " +
+            "AND (s.status IS NULL OR s.status <> 'Отменен') ORDER BY s.dateTime")
+    List<SessionDto> findActiveListItemsByFilmBetween(
+            @Param("filmId") Long filmId,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    @Query(LIST_ITEM + "WHERE s.dateTime > :now AND (s.status IS NULL OR s.status <> 'Отменен') ORDER BY s.dateTime")
+    List<SessionDto> findAvailableListItems(@Param("now") LocalDateTime now);
+
+    // Поиск по расписанию: любой параметр может быть null; from и to включительно, before - не включительно
+    @Query(LIST_ITEM + "WHERE (:filmId IS NULL OR f.filmId = :filmId) " +
+            "AND (:hallId IS NULL OR h.hallId = :hallId) " +
+            "AND (:from IS NULL OR s.dateTime >= :from) " +
+            "AND (:to IS NULL OR s.dateTime <= :to) " +
+            "AND (:before IS NULL OR s.dateTime < :before) " +
+            "ORDER BY s.dateTime")
+    List<SessionDto> searchListItems(
+            @Param("filmId") Long filmId,
+            @Param("hallId") Short hallId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("before") LocalDateTime before);
+
+    @Query(LIST_ITEM + "WHERE s.dateTime > :date ORDER BY s.dateTime LIMIT 1")
+    Optional<SessionDto> findFirstListItemAfter(@Param("date") LocalDateTime date);
+
+    // Всего, будущих, прошедших и отменённых сеансов - одной строкой
+    @Query("SELECT COUNT(s), " +
+            "COALESCE(SUM(CASE WHEN s.dateTime > :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN s.dateTime < :now THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN s.status IN ('CANCELLED', 'Отменен') THEN 1 ELSE 0 END), 0) " +
+            "FROM Session s")
+    List<Object[]> countStatistics(@Param("now") LocalDateTime now);
+
+    // Последний будущий неотменённый сеанс каждого фильма - набор фильмов в прокате одним запросом
+    @Query("SELECT s.film.filmId, MAX(s.dateTime) FROM Session s WHERE s.dateTime > :now " +
+            "AND (s.status IS NULL OR s.status NOT IN ('CANCELLED', 'Отменен')) " +
+            "GROUP BY s.film.filmId")
+    List<Object[]> findLastSessionTimes(@Param("now") LocalDateTime now);
+
+    @Query("SELECT MAX(s.dateTime) FROM Session s WHERE s.film.filmId = :filmId " +
+            "AND (s.status IS NULL OR s.status NOT IN ('CANCELLED', 'Отменен'))")
+    Optional<LocalDateTime> findLastSessionTime(@Param("filmId") Long filmId);
+
+    // Расписание для SessionLifecycle: [sessionId, dateTime, длительность фильма, status] незавершённых сеансов
+    @Query("SELECT s.sessionId, s.dateTime, f.duration, s.status FROM Session s JOIN s.film f " +
+            "WHERE s.status IS NULL OR s.status NOT IN ('Завершен', 'Отменен', 'CANCELLED')")
+    List<Object[]> findLifecycleSchedule();
+
+    // Завершённые и отменённые сеансы не меняются
+    @Modifying
+    @Query("UPDATE Session s SET s.status = :status WHERE s.sessionId IN :ids " +
+            "AND (s.status IS NULL OR s.status NOT IN ('Завершен', 'Отменен', 'CANCELLED'))")
+    int updateOpenStatus(@Param("ids") Collection<Integer> ids, @Param("status") String status);
+}
@@ -1,37 +1,50 @@
 package tp.project.cinema.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tp.project.cinema.dto.TicketDto;
 import tp.project.cinema.model.Ticket;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
+    List<Ticket> findAll();
+
     Optional<Ticket> findByTicketCode(String ticketCode);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     List<Ticket> findByBookingBookingId(Long bookingId);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     @Query("SELECT t FROM Ticket t WHERE t.booking.user.userId = :userId")
     List<Ticket> findByUserId(@Param("userId") Long userId);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     @Query("SELECT t FROM Ticket t WHERE t.seat.hall.hallId = :hallId")
     List<Ticket> findByHallId(@Param("hallId") Short hallId);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     @Query("SELECT t FROM Ticket t WHERE t.booking.session.sessionId = :sessionId")
     List<Ticket> findBySessionId(@Param("sessionId") Integer sessionId);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     @Query("SELECT t FROM Ticket t WHERE t.creationDate BETWEEN :startDate AND :endDate")
     List<Ticket> findByCreationDateBetween(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     @Query("SELECT t FROM Ticket t WHERE t.booking.bookingStatus.statusName = :status")
     List<Ticket> findByBookingStatus(@Param("status") String status);
 
@@ -47,21 +60,60 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
             @Param("seatId") Integer seatId,
             @Param("sessionId") Integer sessionId);
 
+    @EntityGraph(attributePaths = {"seat", "seat.seatType", "seat.hall", "booking", "booking.session", "booking.session.film", "booking.bookingStatus"})
     @Query("SELECT t FROM Ticket t WHERE t.booking.user.userId = :userId " +
             "AND t.booking.session.dateTime >= CURRENT_DATE")
     List<Ticket> findUpcomingTicketsByUser(@Param("userId") Long userId);
 
-    @Query("SELECT SUM(t.price) FROM Ticket t WHERE t.creationDate BETWEEN :start AND :end")
-    BigDecimal getTotalRevenueForPeriod(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
+    // Периоды считает SalesRollup: эти запросы читают только неполные часы по краям периода [from, to)
+    @Query("SELECT COALESCE(SUM(t.price), 0), COUNT(t) FROM Ticket t " +
+            "WHERE t.creationDate >= :from AND t.creationDate < :to")
+    List<Object[]> sumPricesBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 
-    @Query("SELECT t.seat.hall.hallName, COUNT(t) FROM Ticket t " +
-            "WHERE t.creationDate BETWEEN :start AND :end " +
-            "GROUP BY t.seat.hall.hallName")
-    List<Object[]> countTicketsByHallForPeriod(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
+    @Query("SELECT h.hallName, COUNT(t) FROM Ticket t JOIN t.booking b JOIN b.session s JOIN s.hall h " +
+            "WHERE t.creationDate >= :from AND t.creationDate < :to " +
+            "GROUP BY h.hallName")
+    List<Object[]> countTicketsByHallBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT t.seat.seatId FROM Ticket t WHERE t.booking.session.sessionId = :sessionId " +
+            "AND t.booking.bookingStatus.statusName NOT IN ('CANCELLED', 'Отмена')")
+    List<Integer> findOccupiedSeatIds(@Param("sessionId") Integer sessionId);
 
     boolean existsByTicketCode(String ticketCode);
+
+    // Проекции для списков. Билет без цены показывается по цене зала с множителем типа места
+    String LIST_ITEM = "SELECT new tp.project.cinema.dto.TicketDto(t.ticketId, t.creationDate, " +
+            "CASE WHEN t.price IS NULL OR t.price = 0 THEN h.basePrice * st.priceMultiplier ELSE t.price END, " +
+            "t.ticketCode, se.seatId, b.bookingId, st.typeName, se.rowNumber, se.seatNumber, h.hallName, " +
+            "f.title, s.dateTime, bs.statusName) " +
+            "FROM Ticket t JOIN t.seat se JOIN se.seatType st JOIN se.hall h JOIN t.booking b " +
+            "JOIN b.session s JOIN s.film f JOIN b.bookingStatus bs ";
+
+    @Query(LIST_ITEM + "WHERE b.bookingId = :bookingId ORDER BY t.ticketId")
+    List<TicketDto> findListItemsByBooking(@Param("bookingId") Long bookingId);
+
+    @Query(LIST_ITEM + "WHERE b.bookingId IN :bookingIds ORDER BY t.ticketId")
+    List<TicketDto> findListItemsByBookings(@Param("bookingIds") Collection<Long> bookingIds);
+
+    @Query(LIST_ITEM + "WHERE b.user.userId = :userId ORDER BY t.ticketId")
+    List<TicketDto> findListItemsByUser(@Param("userId") Long userId);
+
+    @Query(LIST_ITEM + "WHERE s.sessionId = :sessionId ORDER BY t.ticketId")
+    List<TicketDto> findListItemsBySession(@Param("sessionId") Integer sessionId);
+
+    // Ключ страницы - (дата создания, ID)
+    @Query(LIST_ITEM + "WHERE t.creationDate BETWEEN :start AND :end " +
+            "AND (:afterTime IS NULL OR t.creationDate > :afterTime " +
+            "OR (t.creationDate = :afterTime AND t.ticketId > :afterId)) " +
+            "ORDER BY t.creationDate, t.ticketId")
+    List<TicketDto> findListItemsInPeriodAfter(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            Limit limit);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package tp.project.cinema.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -45,4 +46,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u WHERE u.email = :email AND u.role = :role")
     Optional<User> findByEmailAndRole(@Param("email") String email, @Param("role") String role);
+
+    @Query("SELECT u FROM User u WHERE (:afterId IS NULL OR u.userId > :afterId) ORDER BY u.userId")
+    List<User> findPageAfter(@Param("afterId") Long afterId, Limit limit);
 }
\ No newline at end of file
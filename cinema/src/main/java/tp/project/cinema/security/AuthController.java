@@ -1,6 +1,7 @@
 package tp.project.cinema.security;
 
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PostAuthorize;
@@ -10,6 +11,7 @@ import tp.project.cinema.dto.AuthResponseDto;
 import tp.project.cinema.dto.UserLoginDto;
 import tp.project.cinema.dto.UserRegisterDto;
 import tp.project.cinema.dto.UserDto;
+import tp.project.cinema.exception.ServiceOverloadedException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,9 +22,11 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService authService;
+    private final PasswordHasher passwordHasher;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, PasswordHasher passwordHasher) {
         this.authService = authService;
+        this.passwordHasher = passwordHasher;
     }
 
     @PostMapping("/register")
@@ -30,6 +34,8 @@ public class AuthController {
         try {
             UserDto userDto = authService.register(registerDto);
             return ResponseEntity.status(HttpStatus.CREATED).body(userDto);
+        } catch (ServiceOverloadedException e) {
+            return overloaded(e);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -42,6 +48,8 @@ public class AuthController {
         try {
             AuthResponseDto authResponse = authService.login(loginDto); // Измените этот метод!
             return ResponseEntity.ok(authResponse);
+        } catch (ServiceOverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Неверный email или пароль");
@@ -49,6 +57,22 @@ public class AuthController {
         }
     }
 
+    // Быстрый отказ при перегрузке пула хэширования: клиент повторит запрос позже
+    private ResponseEntity<Map<String, String>> overloaded(ServiceOverloadedException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @GetMapping("/hashing/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getHashingStatistics() {
+        Map<String, Object> statistics = passwordHasher.getStatistics();
+        return ResponseEntity.ok(statistics);
+    }
+
     @GetMapping("/me")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     public ResponseEntity<UserDto> getCurrentUser() {
@@ -1,11 +1,10 @@
 package tp.project.cinema.security;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import tp.project.cinema.dto.*;
 import tp.project.cinema.dto.Mapping.UserMapping;
@@ -17,8 +16,7 @@ import tp.project.cinema.repository.UserRepository;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordHasher passwordHasher;
     private final JwtTokenUtil jwtTokenUtil;
     private final UserMapping userMapping;
 
@@ -28,34 +26,40 @@ public class AuthService {
         }
 
         User user = userMapping.toEntity(registerDto);
-        user.setPasswordHash(passwordEncoder.encode(registerDto.getPassword()));
+        user.setPasswordHash(passwordHasher.encode(registerDto.getPassword()));
 
         User savedUser = userRepository.save(user);
         return userMapping.toDto(savedUser);
     }
 
+    // Пароль проверяется в пуле PasswordHasher, а не в потоке запроса
     public AuthResponseDto login(UserLoginDto loginDto) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginDto.getEmail(),
-                            loginDto.getPassword()
-                    )
-            );
-
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            User user = (User) authentication.getPrincipal();
-
-            String token = jwtTokenUtil.generateToken(user);
-            UserDto userDto = userMapping.toDto(user);
-
-            return AuthResponseDto.builder()
-                    .token(token)
-                    .user(userDto)
-                    .build();
-        } catch (Exception e) {
+        User user = userRepository.findByEmail(loginDto.getEmail()).orElse(null);
+        if (user == null) {
+            passwordHasher.matchUnknownUser(loginDto.getPassword());
             throw new RuntimeException("Неверный email или пароль");
         }
+        if (!passwordHasher.matches(loginDto.getPassword(), user.getPasswordHash())) {
+            throw new RuntimeException("Неверный email или пароль");
+        }
+
+        // Стоимость BCrypt в настройках изменилась - пароль известен, пересчитываем хэш
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            user.setPasswordHash(passwordHasher.encode(loginDto.getPassword()));
+            userRepository.save(user);
+            passwordHasher.recordRehash();
+        }
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        String token = jwtTokenUtil.generateToken(user);
+        UserDto userDto = userMapping.toDto(user);
+
+        return AuthResponseDto.builder()
+                .token(token)
+                .user(userDto)
+                .build();
     }
 
     public UserDto getCurrentUser() {
@@ -65,6 +69,13 @@ public class AuthService {
             return null;
         }
 
+        // Пользователь из claims токена содержит только ID и роль - профиль читается из БД
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return userRepository.findById(principal.userId())
+                    .map(userMapping::toDto)
+                    .orElse(null);
+        }
+
         try {
             User user = (User) authentication.getPrincipal();
             return userMapping.toDto(user);
@@ -72,4 +83,41 @@ public class AuthService {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    // Пользователь, от имени которого выполняется действие над бронью userId: сам вызывающий,
+    // а для администратора - владелец брони. Чужие брони и анонимные запросы отклоняются
+    public Long requireActingUser(Long userId) {
+        Long currentUserId = getCurrentUserId();
+        if (currentUserId == null) {
+            throw new AccessDeniedException("Требуется вход в систему");
+        }
+        if (currentUserId.equals(userId)) {
+            return currentUserId;
+        }
+        if (isCurrentUserAdmin()) {
+            return userId;
+        }
+        throw new AccessDeniedException("Нельзя действовать от имени другого пользователя");
+    }
+
+    public boolean isCurrentUserAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    // ID пользователя из токена без обращения к БД; null - запрос анонимный
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.userId();
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+}
@@ -4,9 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,16 +18,23 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenUtil jwtTokenUtil;
+    private final JwtTokenCache jwtTokenCache;
     private final UserDetailsService userDetailsService;
+    // true - пользователь строится из claims токена (ID, роль) без запроса к БД.
+    // Смена роли тогда вступает в силу только с новым токеном
+    private final boolean statelessPrincipal;
 
-    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, UserDetailsService userDetailsService) {
-        this.jwtTokenUtil = jwtTokenUtil;
+    public JwtAuthenticationFilter(JwtTokenCache jwtTokenCache, UserDetailsService userDetailsService,
+                                   @Value("${jwt.stateless-principal:false}") boolean statelessPrincipal) {
+        this.jwtTokenCache = jwtTokenCache;
         this.userDetailsService = userDetailsService;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     @Override
@@ -36,7 +45,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -44,21 +52,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtTokenUtil.extractUsername(jwt);
+        JwtTokenCache.VerifiedToken token = jwtTokenCache.verify(jwt);
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Object principal;
+            Collection<? extends GrantedAuthority> authorities;
+            // Токены, выданные до появления claims userId/role, по-прежнему проверяются через БД
+            if (statelessPrincipal && token.userId() != null && token.role() != null) {
+                principal = new JwtPrincipal(token.userId(), token.email(), token.role());
+                authorities = List.of(new SimpleGrantedAuthority("ROLE_" + token.role()));
+            } else {
+                UserDetails userDetails = this.userDetailsService.loadUserByUsername(token.email());
+                principal = userDetails;
+                authorities = userDetails.getAuthorities();
             }
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(principal, null, authorities);
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
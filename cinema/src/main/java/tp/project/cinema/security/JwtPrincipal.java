@@ -0,0 +1,12 @@
+package tp.project.cinema.security;
+
+import java.security.Principal;
+
+// Пользователь, восстановленный из подписанных claims токена без обращения к БД
+public record JwtPrincipal(Long userId, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,68 @@
+package tp.project.cinema.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+// Кэш проверенных токенов: подпись проверяется один раз на токен, а не на каждый запрос.
+// Ключ - SHA-256 токена (сам токен в памяти не хранится), запись живёт не дольше срока действия токена
+@Component
+public class JwtTokenCache {
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final Cache<String, VerifiedToken> tokens;
+
+    public JwtTokenCache(JwtTokenUtil jwtTokenUtil,
+                         @Value("${jwt.cache.maximum-size:10000}") long maximumSize) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String key, VerifiedToken token) ->
+                        Duration.between(Instant.now(), token.expiresAt())))
+                .build();
+    }
+
+    // Данные проверенного токена или null, если подпись неверна или срок истёк
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken verified = tokens.getIfPresent(key);
+        if (verified != null && verified.expiresAt().isAfter(Instant.now())) {
+            return verified;
+        }
+        try {
+            Claims claims = jwtTokenUtil.parseToken(token);
+            verified = new VerifiedToken(claims.getSubject(),
+                    claims.get(JwtTokenUtil.USER_ID_CLAIM, Long.class),
+                    claims.get(JwtTokenUtil.ROLE_CLAIM, String.class),
+                    claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        tokens.put(key, verified);
+        return verified;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // userId и role есть только в токенах, выданных вместе с этими claims
+    public record VerifiedToken(String email, Long userId, String role, Instant expiresAt) {
+    }
+}
@@ -1,12 +1,15 @@
 package tp.project.cinema.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import tp.project.cinema.model.User;
 
 import java.security.Key;
 import java.util.Date;
@@ -17,14 +20,34 @@ import java.util.function.Function;
 @Component
 public class JwtTokenUtil {
 
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String ROLE_CLAIM = "role";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    // Ключ и парсер не зависят от токена - строятся один раз, а не на каждый запрос
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    // Проверить подпись и срок действия; при ошибке бросает JwtException
+    public Claims parseToken(String token) {
+        return extractAllClaims(token);
     }
 
     public String extractUsername(String token) {
@@ -41,11 +64,7 @@ public class JwtTokenUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private Boolean isTokenExpired(String token) {
@@ -54,6 +73,11 @@ public class JwtTokenUtil {
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        // ID и роль в подписанном токене позволяют не читать пользователя из БД на каждый запрос
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getUserId());
+            claims.put(ROLE_CLAIM, user.getRole());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
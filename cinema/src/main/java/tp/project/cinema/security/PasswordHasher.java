@@ -0,0 +1,159 @@
+package tp.project.cinema.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.exception.ServiceOverloadedException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// BCrypt выполняется в отдельном пуле фиксированного размера с ограниченной очередью.
+// Наплыв входов при старте продаж занимает только этот пул, а не потоки Tomcat:
+// при полной очереди или долгом ожидании запрос сразу отклоняется
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final long maxWaitMillis;
+    private final ThreadPoolExecutor executor;
+    private volatile String unknownUserHash;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${auth.bcrypt.strength:10}") int strength,
+                          @Value("${auth.hashing.threads:0}") int threads,
+                          @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.hashing.max-wait-ms:2000}") long maxWaitMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.maxWaitMillis = maxWaitMillis;
+        // 0 - по числу ядер: BCrypt нагружает только процессор
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String passwordHash) {
+        return submit(() -> passwordEncoder.matches(rawPassword, passwordHash));
+    }
+
+    // Для неизвестного email пароль всё равно проверяется: время ответа не выдаёт, есть ли такой пользователь
+    public void matchUnknownUser(String rawPassword) {
+        submit(() -> passwordEncoder.matches(rawPassword, unknownUserHash()));
+    }
+
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode("unknown-user-password");
+            unknownUserHash = hash;
+        }
+        return hash;
+    }
+
+    // Хэш с другой стоимостью, чем в настройках, пересчитывается при следующем успешном входе
+    public boolean needsRehash(String passwordHash) {
+        Matcher matcher = BCRYPT_COST.matcher(passwordHash);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public void recordRehash() {
+        rehashed.increment();
+    }
+
+    public Map<String, Object> getStatistics() {
+        long count = hashes.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("strength", strength);
+        statistics.put("threads", executor.getMaximumPoolSize());
+        statistics.put("active", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        statistics.put("hashes", count);
+        statistics.put("rejected", rejected.sum());
+        statistics.put("rehashed", rehashed.sum());
+        statistics.put("avgHashMs", count > 0 ? hashNanos.sum() / count / 1_000_000.0 : 0.0);
+        statistics.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        statistics.put("avgQueueWaitMs", count > 0 ? queueWaitNanos.sum() / count / 1_000_000.0 : 0.0);
+        statistics.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        return statistics;
+    }
+
+    private <T> T submit(Callable<T> hashing) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                record(queueWaitNanos, maxQueueWaitNanos, started - submitted);
+                try {
+                    return hashing.call();
+                } finally {
+                    hashes.increment();
+                    record(hashNanos, maxHashNanos, System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Сервис авторизации перегружен, повторите попытку позже");
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Задача ещё в очереди - убираем её, чтобы не тратить процессор на ответ, который никто не ждёт
+            future.cancel(false);
+            executor.remove((Runnable) future);
+            rejected.increment();
+            throw new ServiceOverloadedException("Сервис авторизации перегружен, повторите попытку позже");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new ServiceOverloadedException("Проверка пароля прервана");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
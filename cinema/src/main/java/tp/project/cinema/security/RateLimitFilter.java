@@ -0,0 +1,120 @@
+package tp.project.cinema.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tp.project.cinema.config.RateLimitProperties;
+import tp.project.cinema.model.User;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ограничение частоты запросов к бронированиям, местам и авторизации.
+// Клиент - пользователь из JWT или IP-адрес для анонимных запросов, у каждого своя корзина в каждой группе.
+// Корзина без блокировок: одно AtomicLong хранит момент, когда корзина снова станет полной (GCRA),
+// запрос проходит, если после него этот момент отстоит от текущего не больше чем на размер корзины
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(Duration.ofMinutes(properties.getIdleMinutes()))
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Map.Entry<String, RateLimitProperties.Group> group = properties.isEnabled() ? findGroup(request) : null;
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Новая корзина полная: момент заполнения в прошлом
+        AtomicLong bucket = buckets.get(group.getKey() + ":" + clientKey(request), key -> new AtomicLong(Long.MIN_VALUE));
+        long retryAfterNanos = tryAcquire(bucket, group.getValue());
+        if (retryAfterNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos))));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\":\"Слишком много запросов, повторите попытку позже\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // 0 - запрос разрешён, иначе через сколько наносекунд освободится место в корзине
+    private long tryAcquire(AtomicLong bucket, RateLimitProperties.Group group) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, group.getPerMinute());
+        long burst = interval * Math.max(1, group.getCapacity());
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + interval;
+            if (next - now > burst) {
+                return next - now - burst;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private Map.Entry<String, RateLimitProperties.Group> findGroup(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Map.Entry<String, RateLimitProperties.Group> entry : properties.getGroups().entrySet()) {
+            RateLimitProperties.Group group = entry.getValue();
+            if (!group.getMethods().isEmpty() && !group.getMethods().contains(request.getMethod())) {
+                continue;
+            }
+            for (String pattern : group.getPaths()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Фильтр стоит после JwtAuthenticationFilter: пользователь из токена уже известен
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null) {
+            if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+                return "user:" + principal.userId();
+            }
+            if (authentication.getPrincipal() instanceof User user) {
+                return "user:" + user.getUserId();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
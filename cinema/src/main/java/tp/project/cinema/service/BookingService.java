@@ -4,11 +4,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tp.project.cinema.dto.BookingDto;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.TicketDto;
 import tp.project.cinema.dto.Mapping.BookingMapping;
 import tp.project.cinema.exception.ResourceNotFoundException;
 import tp.project.cinema.model.*;
 import tp.project.cinema.repository.*;
+import tp.project.cinema.security.AuthService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -27,11 +29,58 @@ public class BookingService {
     private final SeatRepository seatRepository;
     private final TicketRepository ticketRepository;
     private final BookingMapping bookingMapping;
-
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final CatalogVersions catalogVersions;
+    private final CursorPaging cursorPaging;
+    private final SalesRollup salesRollup;
+    private final AuthService authService;
+
+    @Transactional(readOnly = true)
     public List<BookingDto> getAllBookings() {
-        return bookingRepository.findAll().stream()
-                .map(bookingMapping::toDto)
-                .collect(Collectors.toList());
+        return withTickets(bookingRepository.findAllListItems());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDto> getBookingsPage(String cursor, Integer limit) {
+        int pageSize = cursorPaging.resolveLimit(limit);
+        List<BookingDto> rows = bookingRepository.findListItemsAfter(
+                cursorPaging.decodeId(cursor), cursorPaging.probe(pageSize));
+        CursorPage<BookingDto> page = cursorPaging.page(rows, pageSize,
+                booking -> new Object[]{booking.getBookingId()});
+        withTickets(page.getItems());
+        return page;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDto> getBookingsByDateRangePage(LocalDateTime start, LocalDateTime end,
+                                                             String cursor, Integer limit) {
+        int pageSize = cursorPaging.resolveLimit(limit);
+        String[] keys = cursorPaging.decode(cursor, 2);
+        List<BookingDto> rows = bookingRepository.findListItemsInPeriodAfter(start, end,
+                keys != null ? CursorPaging.parseTime(keys[0]) : null,
+                keys != null ? CursorPaging.parseLong(keys[1]) : null,
+                cursorPaging.probe(pageSize));
+        CursorPage<BookingDto> page = cursorPaging.page(rows, pageSize,
+                booking -> new Object[]{booking.getBookingTime(), booking.getBookingId()});
+        withTickets(page.getItems());
+        return page;
+    }
+
+    // Билеты всех броней списка одним запросом
+    private List<BookingDto> withTickets(List<BookingDto> bookings) {
+        if (bookings.isEmpty()) {
+            return bookings;
+        }
+        Map<Long, BookingDto> byId = new HashMap<>();
+        for (BookingDto booking : bookings) {
+            booking.setTicketList(new ArrayList<>());
+            byId.put(booking.getBookingId(), booking);
+        }
+        for (TicketDto ticket : ticketRepository.findListItemsByBookings(byId.keySet())) {
+            byId.get(ticket.getBookingId()).getTicketList().add(ticket);
+        }
+        return bookings;
     }
 
     public BookingDto getBookingById(Long id) {
@@ -41,6 +90,9 @@ public class BookingService {
     }
 
     public BookingDto createBooking(BookingDto bookingDto) {
+        // 1. Бронь создаётся на себя; на другого пользователя - только администратором
+        Long ownerId = authService.requireActingUser(bookingDto.getUserId());
+
         // 2. Поиск пользователя
         User user = userRepository.findById(bookingDto.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + bookingDto.getUserId() + " не найден"));
@@ -79,10 +131,39 @@ public class BookingService {
         // 8. Сохранение бронирования (нужно сделать до создания билетов)
         Booking savedBooking = bookingRepository.save(booking);
 
+        // 9. Если места переданы сразу - превращаем удержания в билеты одной пачкой
+        if (bookingDto.getTicketList() != null && !bookingDto.getTicketList().isEmpty()) {
+            validateBookingRequest(bookingDto);
+            issueTickets(savedBooking, ownerId, bookingDto.getTicketList());
+        }
+
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
+
         // 13. Возвращаем DTO
         return bookingMapping.toDto(savedBooking);
     }
 
+    // Выпуск нескольких билетов в существующую бронь одним пакетом
+    public BookingDto addTickets(Long bookingId, List<TicketDto> ticketDtos) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Бронирование с ID " + bookingId + " не найдено"));
+        Long ownerId = authService.requireActingUser(booking.getUser().getUserId());
+
+        if (isCancelled(booking)) {
+            throw new IllegalArgumentException("Бронирование отменено");
+        }
+        if (booking.getSession().getDateTime().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Сеанс уже начался или завершился");
+        }
+        if (ticketDtos == null || ticketDtos.isEmpty()) {
+            throw new IllegalArgumentException("Должно быть выбрано хотя бы одно место");
+        }
+        validateSeatIds(ticketDtos);
+
+        issueTickets(booking, ownerId, ticketDtos);
+        return bookingMapping.toDto(booking);
+    }
+
     private void validateBookingRequest(BookingDto bookingDto) {
         if (bookingDto.getUserId() == null) {
             throw new IllegalArgumentException("ID пользователя обязателен");
@@ -94,9 +175,13 @@ public class BookingService {
             throw new IllegalArgumentException("Должно быть выбрано хотя бы одно место");
         }
 
+        validateSeatIds(bookingDto.getTicketList());
+    }
+
+    private void validateSeatIds(List<TicketDto> ticketDtos) {
         // Проверка на дубликаты мест
         Set<Integer> seatIds = new HashSet<>();
-        for (TicketDto ticketDto : bookingDto.getTicketList()) {
+        for (TicketDto ticketDto : ticketDtos) {
             if (ticketDto.getSeatId() == null) {
                 throw new IllegalArgumentException("ID места обязательно для каждого билета");
             }
@@ -106,6 +191,46 @@ public class BookingService {
         }
     }
 
+    // ownerId - пользователь, чьи удержания превращаются в билеты (вызывающий, а не поле брони)
+    private void issueTickets(Booking booking, Long ownerId, List<TicketDto> ticketDtos) {
+        Integer sessionId = booking.getSession().getSessionId();
+        List<Integer> seatIds = ticketDtos.stream()
+                .map(TicketDto::getSeatId)
+                .collect(Collectors.toList());
+
+        // 10. Закрепляем места (свободные или удерживаемые этим пользователем)
+        seatHoldService.claim(sessionId, ownerId, seatIds);
+
+        // Все места проверяются и загружаются одним запросом
+        Map<Integer, Seat> seats = seatRepository.findAllForTickets(seatIds).stream()
+                .collect(Collectors.toMap(Seat::getSeatId, seat -> seat));
+
+        // 11. Создание билетов
+        List<Ticket> tickets = new ArrayList<>(ticketDtos.size());
+        for (TicketDto ticketDto : ticketDtos) {
+            Seat seat = seats.get(ticketDto.getSeatId());
+            if (seat == null) {
+                throw new ResourceNotFoundException("Место с ID " + ticketDto.getSeatId() + " не найдено");
+            }
+            Ticket ticket = createTicket(ticketDto, seat, booking);
+            ticket.setPrice(calculateTicketPrice(ticketDto, seat));
+            ticket.setTicketCode(generateTicketCode());
+            tickets.add(ticket);
+        }
+
+        // 12. Сохраняем все билеты пакетной вставкой и один раз пересчитываем стоимость брони
+        ticketRepository.saveAll(tickets);
+        booking.getTicketList().addAll(tickets);
+        booking.setTotalCost(booking.getTicketList().stream()
+                .map(Ticket::getPrice)
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        // Стоимость брони учтена в часе бронирования, который мог быть уже свёрнут
+        salesRollup.changed(booking.getBookingTime());
+        seatInventory.markOccupied(sessionId, seatIds);
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
+    }
+
     private Ticket createTicket(TicketDto ticketDto, Seat seat, Booking booking) {
         Ticket ticket = new Ticket();
         ticket.setSeat(seat);
@@ -146,34 +271,56 @@ public class BookingService {
         existingBooking.setBookingStatus(status);
 
         Booking updatedBooking = bookingRepository.save(existingBooking);
+        // Статус мог перевести бронь в отменённую или обратно - перечитываем занятость сеанса
+        seatInventory.evictSession(existingBooking.getSession().getSessionId());
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
         return bookingMapping.toDto(updatedBooking);
     }
 
     public void deleteBooking(Long id) {
-        if (!bookingRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Бронирование с ID " + id + " не найдено");
+        Booking booking = bookingRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Бронирование с ID " + id + " не найдено"));
+
+        // Места отменённой брони освобождены при отмене и могли уйти другой брони
+        boolean releaseSeats = !isCancelled(booking);
+        List<Integer> seatIds = seatIdsOf(booking);
+        List<LocalDateTime> saleTimes = new ArrayList<>();
+        saleTimes.add(booking.getBookingTime());
+        booking.getTicketList().forEach(ticket -> saleTimes.add(ticket.getCreationDate()));
+        bookingRepository.delete(booking);
+        salesRollup.changed(saleTimes);
+        if (releaseSeats) {
+            seatInventory.release(booking.getSession().getSessionId(), seatIds);
         }
-        bookingRepository.deleteById(id);
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
+    }
+
+    private static boolean isCancelled(Booking booking) {
+        return SessionLifecycle.isBookingCancelled(booking.getBookingStatus().getStatusName());
+    }
+
+    private List<Integer> seatIdsOf(Booking booking) {
+        return booking.getTicketList().stream()
+                .map(ticket -> ticket.getSeat().getSeatId())
+                .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BookingDto> getBookingsByUser(Long userId) {
         if (!userRepository.existsById(userId)) {
             throw new ResourceNotFoundException("Пользователь с ID " + userId + " не найден");
         }
 
-        return bookingRepository.findByUserUserId(userId).stream()
-                .map(bookingMapping::toDto)
-                .collect(Collectors.toList());
+        return withTickets(bookingRepository.findListItemsByUser(userId));
     }
 
+    @Transactional(readOnly = true)
     public List<BookingDto> getBookingsBySession(Integer sessionId) {
         if (!sessionRepository.existsById(sessionId)) {
             throw new ResourceNotFoundException("Сеанс с ID " + sessionId + " не найден");
         }
 
-        return bookingRepository.findBySessionSessionId(sessionId).stream()
-                .map(bookingMapping::toDto)
-                .collect(Collectors.toList());
+        return withTickets(bookingRepository.findListItemsBySession(sessionId));
     }
 
     public List<BookingDto> getBookingsByStatus(String status) {
@@ -196,12 +343,17 @@ public class BookingService {
         booking.setBookingStatus(confirmedStatus);
 
         Booking confirmedBooking = bookingRepository.save(booking);
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
         return bookingMapping.toDto(confirmedBooking);
     }
 
     public BookingDto cancelBooking(Long id) {
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Бронирование с ID " + id + " не найдено"));
+        // Повторная отмена ничего не меняет: места брони уже освобождены
+        if (isCancelled(booking)) {
+            return bookingMapping.toDto(booking);
+        }
 
         BookingStatus cancelledStatus = bookingStatusRepository.findByStatusName("Отмена")
                 .orElseGet(() -> {
@@ -213,6 +365,8 @@ public class BookingService {
         booking.setBookingStatus(cancelledStatus);
 
         Booking cancelledBooking = bookingRepository.save(booking);
+        seatInventory.release(booking.getSession().getSessionId(), seatIdsOf(booking));
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
         return bookingMapping.toDto(cancelledBooking);
     }
 
@@ -240,8 +394,7 @@ public class BookingService {
         LocalDateTime start = LocalDateTime.parse(startDate + "T00:00:00");
         LocalDateTime end = LocalDateTime.parse(endDate + "T23:59:59");
 
-        Double revenue = bookingRepository.getTotalRevenueForPeriod(start, end);
-        return revenue != null ? revenue : 0.0;
+        return salesRollup.sales(start, end).bookingRevenue().doubleValue();
     }
 
     // Дополнительные методы
@@ -300,18 +453,19 @@ public class BookingService {
         return count != null ? count : 0L;
     }
 
+    // Выручка и число броней - из почасовой свёртки, без загрузки броней периода
+    @Transactional(readOnly = true)
     public Map<String, Object> getBookingStatistics(LocalDateTime start, LocalDateTime end) {
-        Double revenue = bookingRepository.getTotalRevenueForPeriod(start, end);
+        SalesRollup.Sales sales = salesRollup.sales(start, end);
+        double revenue = sales.bookingRevenue().doubleValue();
         Long uniqueUsers = bookingRepository.countUniqueUsersForPeriod(start, end);
-        List<BookingDto> recentBookings = getBookingsByDateRange(start, end);
 
         Map<String, Object> statistics = new HashMap<>();
-        statistics.put("revenue", revenue != null ? revenue : 0.0);
+        statistics.put("revenue", revenue);
         statistics.put("uniqueUsers", uniqueUsers != null ? uniqueUsers : 0);
-        statistics.put("totalBookings", recentBookings.size());
-        statistics.put("averageBookingValue", revenue != null && recentBookings.size() > 0
-                ? revenue / recentBookings.size() : 0);
+        statistics.put("totalBookings", sales.bookings());
+        statistics.put("averageBookingValue", sales.bookings() > 0 ? revenue / sales.bookings() : 0);
 
         return statistics;
     }
-}
\ No newline at end of file
+}
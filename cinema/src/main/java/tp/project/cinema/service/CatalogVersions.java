@@ -0,0 +1,98 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.config.CacheConfig;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Счётчики версий агрегатов для условных GET: ETag собирается из счётчиков без сериализации ответа,
+// и If-None-Match проверяется до обращения к БД. Эпоха запуска в ETag не даёт совпасть версиям
+// разных запусков приложения
+@Component
+@RequiredArgsConstructor
+public class CatalogVersions {
+
+    public enum Aggregate {
+        FILMS, HALLS, SESSIONS, BOOKINGS
+    }
+
+    // Кэши каталога, которые отдают ресурсы с ETag фильмов
+    private static final List<String> FILM_CACHES = List.of(
+            CacheConfig.FILMS, CacheConfig.FILM_INFO, CacheConfig.NOW_PLAYING, CacheConfig.COMING_SOON);
+
+    private final CacheManager cacheManager;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Aggregate, Version> versions = new EnumMap<>(Aggregate.class);
+
+    {
+        for (Aggregate aggregate : Aggregate.values()) {
+            versions.put(aggregate, new Version(System.currentTimeMillis()));
+        }
+    }
+
+    // Версия меняется после коммита. Кэши фильмов сбрасываются до смены версии: иначе запрос
+    // между сменой версии и @CacheEvict (он срабатывает позже, снаружи транзакции) получил бы
+    // новый ETag вместе со старым списком из кэша
+    public void changed(Aggregate aggregate) {
+        AfterCommit.run(() -> {
+            if (aggregate == Aggregate.FILMS) {
+                for (String cacheName : FILM_CACHES) {
+                    Cache cache = cacheManager.getCache(cacheName);
+                    if (cache != null) {
+                        cache.clear();
+                    }
+                }
+            }
+            versions.get(aggregate).increment();
+        });
+    }
+
+    public Stamp stamp(Aggregate... aggregates) {
+        return stamp(-1, aggregates);
+    }
+
+    // Для ответов, зависящих от текущего времени (ближайшие сеансы, статусы): ETag меняется раз в минуту
+    public Stamp stampPerMinute(Aggregate... aggregates) {
+        return stamp(TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis()), aggregates);
+    }
+
+    private Stamp stamp(long minute, Aggregate... aggregates) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        long lastModified = minute >= 0 ? TimeUnit.MINUTES.toMillis(minute) : 0;
+        for (Aggregate aggregate : aggregates) {
+            Version version = versions.get(aggregate);
+            etag.append('-').append(version.counter.get());
+            lastModified = Math.max(lastModified, version.modifiedAt);
+        }
+        if (minute >= 0) {
+            etag.append("-m").append(minute);
+        }
+        return new Stamp(etag.append('"').toString(), lastModified);
+    }
+
+    public record Stamp(String etag, long lastModified) {
+    }
+
+    private static final class Version {
+        private final AtomicLong counter = new AtomicLong();
+        private volatile long modifiedAt;
+
+        Version(long modifiedAt) {
+            this.modifiedAt = modifiedAt;
+        }
+
+        // Время меняется раньше счётчика: увидевший новый ETag увидит и новое время
+        void increment() {
+            modifiedAt = Math.max(modifiedAt, System.currentTimeMillis());
+            counter.incrementAndGet();
+        }
+    }
+}
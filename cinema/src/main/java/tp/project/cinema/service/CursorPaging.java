@@ -0,0 +1,103 @@
+package tp.project.cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Постраничный вывод по ключу (keyset): курсор хранит ключ последней отданной строки.
+// Формат курсора закрыт для клиента: base64url от "v1|ключ1|ключ2..."
+@Component
+public class CursorPaging {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public CursorPaging(@Value("${pagination.default-limit:20}") int defaultLimit,
+                        @Value("${pagination.max-limit:100}") int maxLimit) {
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public int resolveLimit(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+        return Math.min(requested, maxLimit);
+    }
+
+    // На одну строку больше страницы - чтобы узнать, есть ли продолжение, без COUNT
+    public Limit probe(int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    public <T> CursorPage<T> page(List<T> rows, int limit, Function<T, Object[]> keyOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encode(keyOf.apply(items.get(limit - 1))), true);
+    }
+
+    public String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder(VERSION);
+        for (Object key : keys) {
+            raw.append(SEPARATOR).append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Ключи курсора; null, если курсор не передан (первая страница)
+    public String[] decode(String cursor, int keyCount) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != keyCount + 1 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Некорректный курсор");
+            }
+            String[] keys = new String[keyCount];
+            System.arraycopy(parts, 1, keys, 0, keyCount);
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+
+    public Long decodeId(String cursor) {
+        String[] keys = decode(cursor, 1);
+        return keys != null ? parseLong(keys[0]) : null;
+    }
+
+    public static Long parseLong(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+
+    public static LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.repository.FilmGenreRepository;
+import tp.project.cinema.repository.FilmRepository;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Колоночное хранилище фильмов для фасетного поиска: фильм адресуется позицией (ordinal),
+// для каждого значения фасета хранится битовая карта фильмов с этим значением.
+// Фильтры и счётчики фасетов считаются пересечением битовых карт, без запросов к БД
+@Component
+@RequiredArgsConstructor
+public class FilmColumnStore {
+
+    public static final String GENRE = "genre";
+    public static final String AGE_RATING = "ageRating";
+    public static final String COUNTRY = "country";
+    public static final String DURATION = "duration";
+
+    private static final int[] DURATION_BOUNDS = {90, 120, 150};
+    private static final String[] DURATION_LABELS = {"до 90 мин", "90-120 мин", "120-150 мин", "от 150 мин"};
+
+    private final FilmRepository filmRepository;
+    private final FilmGenreRepository filmGenreRepository;
+
+    // Снимок публикуется вместе с версией, из которой он построен: сброс во время загрузки
+    // меняет версию, и устаревший снимок не сохранится
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, null));
+
+    // Внутри фасета выбранные значения объединяются (ИЛИ), между фасетами - пересекаются (И).
+    // Счётчик значения фасета учитывает фильтры всех остальных фасетов, но не свой собственный
+    public Result browse(Map<String, Set<String>> filters) {
+        Columns store = load();
+        List<Facet> facets = store.facets();
+
+        long[][] masks = new long[facets.size()][];
+        for (int i = 0; i < facets.size(); i++) {
+            masks[i] = facets.get(i).mask(filters.get(facets.get(i).name()), store.words());
+        }
+
+        long[] matched = store.all();
+        for (long[] mask : masks) {
+            matched = and(matched, mask);
+        }
+
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        for (int i = 0; i < facets.size(); i++) {
+            long[] others = store.all();
+            for (int j = 0; j < masks.length; j++) {
+                if (j != i) {
+                    others = and(others, masks[j]);
+                }
+            }
+            Facet facet = facets.get(i);
+            Map<String, Integer> facetCounts = new LinkedHashMap<>();
+            for (int value = 0; value < facet.values().length; value++) {
+                facetCounts.put(facet.values()[value], count(facet.bits()[value], others));
+            }
+            counts.put(facet.name(), facetCounts);
+        }
+
+        List<Long> filmIds = new ArrayList<>();
+        for (int word = 0; word < matched.length; word++) {
+            long bits = matched[word];
+            while (bits != 0) {
+                filmIds.add(store.filmIds()[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return new Result(filmIds, counts);
+    }
+
+    // Сбросить снимок после коммита, следующий запрос перечитает его из БД
+    public void invalidate() {
+        AfterCommit.run(() -> snapshot.updateAndGet(current -> new Snapshot(current.version() + 1, null)));
+    }
+
+    private Columns load() {
+        Snapshot current = snapshot.get();
+        if (current.columns() != null) {
+            return current.columns();
+        }
+        Columns loaded = build();
+        snapshot.compareAndSet(current, new Snapshot(current.version(), loaded));
+        return loaded;
+    }
+
+    private Columns build() {
+        List<Object[]> rows = filmRepository.findFacetColumns();
+        int size = rows.size();
+        long[] filmIds = new long[size];
+        Map<Long, Integer> ordinals = new HashMap<>();
+        Map<String, BitSet> ageRatings = new TreeMap<>(
+                Comparator.comparingInt(FilmColumnStore::leadingNumber).thenComparing(Comparator.naturalOrder()));
+        Map<String, BitSet> countries = new TreeMap<>();
+        Map<String, BitSet> durations = new LinkedHashMap<>();
+        for (String label : DURATION_LABELS) {
+            durations.put(label, new BitSet(size));
+        }
+
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Object[] row = rows.get(ordinal);
+            filmIds[ordinal] = (Long) row[0];
+            ordinals.put(filmIds[ordinal], ordinal);
+            ageRatings.computeIfAbsent((String) row[1], value -> new BitSet(size)).set(ordinal);
+            countries.computeIfAbsent((String) row[2], value -> new BitSet(size)).set(ordinal);
+            durations.get(DURATION_LABELS[durationBucket((Short) row[3])]).set(ordinal);
+        }
+
+        Map<String, BitSet> genres = new TreeMap<>();
+        for (Object[] row : filmGenreRepository.findAllGenreNames()) {
+            Integer ordinal = ordinals.get((Long) row[0]);
+            if (ordinal != null) {
+                genres.computeIfAbsent((String) row[1], value -> new BitSet(size)).set(ordinal);
+            }
+        }
+
+        int words = (size + 63) >>> 6;
+        BitSet everyFilm = new BitSet(size);
+        everyFilm.set(0, size);
+        long[] all = Arrays.copyOf(everyFilm.toLongArray(), words);
+
+        return new Columns(filmIds, words, all, List.of(
+                Facet.of(GENRE, genres, words),
+                Facet.of(AGE_RATING, ageRatings, words),
+                Facet.of(COUNTRY, countries, words),
+                Facet.of(DURATION, durations, words)));
+    }
+
+    private static int durationBucket(Short duration) {
+        int minutes = duration != null ? duration : 0;
+        int bucket = 0;
+        while (bucket < DURATION_BOUNDS.length && minutes >= DURATION_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    // "16+" -> 16: рейтинги сортируются по возрасту, а не по строке
+    private static int leadingNumber(String value) {
+        int number = 0;
+        for (int i = 0; i < value.length() && Character.isDigit(value.charAt(i)); i++) {
+            number = number * 10 + (value.charAt(i) - '0');
+        }
+        return number;
+    }
+
+    // null - фильтр не задан, пересекать не нужно
+    private static long[] and(long[] target, long[] mask) {
+        if (mask == null) {
+            return target;
+        }
+        long[] result = new long[target.length];
+        for (int i = 0; i < target.length; i++) {
+            result[i] = target[i] & mask[i];
+        }
+        return result;
+    }
+
+    private static int count(long[] bits, long[] mask) {
+        int count = 0;
+        for (int i = 0; i < bits.length; i++) {
+            count += Long.bitCount(bits[i] & mask[i]);
+        }
+        return count;
+    }
+
+    public record Result(List<Long> filmIds, Map<String, Map<String, Integer>> facets) {
+    }
+
+    // Неизменяемый снимок: ID фильмов по позиции и фасеты; all - карта всех фильмов
+    private record Columns(long[] filmIds, int words, long[] all, List<Facet> facets) {
+    }
+
+    // columns == null - снимок сброшен и будет построен при следующем запросе
+    private record Snapshot(long version, Columns columns) {
+    }
+
+    private record Facet(String name, String[] values, long[][] bits) {
+
+        static Facet of(String name, Map<String, BitSet> values, int words) {
+            String[] names = values.keySet().toArray(new String[0]);
+            long[][] bits = new long[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                bits[i] = Arrays.copyOf(values.get(names[i]).toLongArray(), words);
+            }
+            return new Facet(name, names, bits);
+        }
+
+        // Объединение карт выбранных значений; неизвестное значение ничего не добавляет
+        long[] mask(Set<String> selected, int words) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            long[] mask = new long[words];
+            for (int i = 0; i < values.length; i++) {
+                if (selected.contains(values[i])) {
+                    for (int word = 0; word < words; word++) {
+                        mask[word] |= bits[i][word];
+                    }
+                }
+            }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.dto.FilmDto;
+import tp.project.cinema.repository.FilmGenreRepository;
+import tp.project.cinema.repository.FilmRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// Инвертированный индекс фильмов в памяти: название, описание, режиссёр, жанры и возрастной рейтинг.
+// Слово запроса совпадает со словом индекса целиком, по префиксу или как подстрока (через триграммы);
+// фильм должен содержать все слова запроса, вес зависит от поля и вида совпадения
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+
+    public static final int TITLE = 1;
+    public static final int DESCRIPTION = 1 << 1;
+    public static final int DIRECTOR = 1 << 2;
+    public static final int GENRE = 1 << 3;
+    public static final int AGE_RATING = 1 << 4;
+    public static final int ALL_FIELDS = TITLE | DESCRIPTION | DIRECTOR | GENRE | AGE_RATING;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.6;
+    private static final double SUBSTRING = 0.3;
+
+    private final FilmRepository filmRepository;
+    private final FilmGenreRepository filmGenreRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean loaded;
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    // слово -> (ID фильма -> поля, в которых оно встречается)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // триграмма -> слова индекса, которые её содержат
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    // ID фильмов по убыванию релевантности; пустой текст - все фильмы, прошедшие фильтр, по ID
+    public List<Long> search(String text, int fields, Predicate<Document> filter) {
+        ensureLoaded();
+        List<String> queryTokens = tokenize(text);
+
+        lock.readLock().lock();
+        try {
+            if (queryTokens.isEmpty()) {
+                return documents.values().stream()
+                        .filter(filter)
+                        .map(Document::filmId)
+                        .sorted()
+                        .toList();
+            }
+
+            Map<Long, Double> scores = null;
+            for (String token : queryTokens) {
+                Map<Long, Double> tokenScores = match(token, fields);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Все слова запроса обязательны
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((filmId, score) -> score + tokenScores.get(filmId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            Map<Long, Double> ranked = scores;
+            return ranked.keySet().stream()
+                    .map(documents::get)
+                    .filter(filter)
+                    .sorted(Comparator.comparingDouble((Document document) -> ranked.get(document.filmId())).reversed()
+                            .thenComparing(Document::title))
+                    .map(Document::filmId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Перечитать фильм в текущей транзакции (видны её изменения) и обновить индекс после коммита
+    public void refresh(Long filmId) {
+        List<FilmDto> films = filmRepository.findListItemsByIds(List.of(filmId));
+        Map<Long, List<String>> genres = loadGenres(List.of(filmId));
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                // Ещё не построенный индекс прочитает фильм при загрузке
+                if (!loaded) {
+                    return;
+                }
+                removeDocument(filmId);
+                films.forEach(film -> addDocument(film, genres.getOrDefault(film.getFilmId(), List.of())));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long filmId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(filmId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private Map<Long, Double> match(String token, int fields) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : candidateTerms(token)) {
+            double kind = term.equals(token) ? EXACT : term.startsWith(token) ? PREFIX : SUBSTRING;
+            postings.get(term).forEach((filmId, termFields) -> {
+                int matched = termFields & fields;
+                if (matched != 0) {
+                    // Для слова запроса засчитывается лучшее из совпавших слов фильма
+                    scores.merge(filmId, kind * weight(matched), Math::max);
+                }
+            });
+        }
+        return scores;
+    }
+
+    private Collection<String> candidateTerms(String token) {
+        if (token.length() < 3) {
+            // Короткое слово ищется только по префиксу
+            return postings.subMap(token, true, token + Character.MAX_VALUE, false).keySet();
+        }
+        Set<String> candidates = null;
+        for (String trigram : trigramsOf(token)) {
+            Set<String> terms = trigrams.getOrDefault(trigram, Set.of());
+            if (candidates == null) {
+                candidates = new HashSet<>(terms);
+            } else {
+                candidates.retainAll(terms);
+            }
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+        }
+        // Триграммы могут совпасть в разных местах слова - проверяем подстроку целиком
+        candidates.removeIf(term -> !term.contains(token));
+        return candidates;
+    }
+
+    private static double weight(int fields) {
+        double weight = 0;
+        if ((fields & TITLE) != 0) weight += 3;
+        if ((fields & DIRECTOR) != 0) weight += 2;
+        if ((fields & GENRE) != 0) weight += 2;
+        if ((fields & AGE_RATING) != 0) weight += 1;
+        if ((fields & DESCRIPTION) != 0) weight += 1;
+        return weight;
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Индекс строится целиком при первом поиске, дальше правится по одному фильму
+    private void ensureLoaded() {
+        if (isLoaded()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                List<FilmDto> films = filmRepository.findAllListItems();
+                Map<Long, List<String>> genres = loadGenres(films.stream().map(FilmDto::getFilmId).toList());
+                films.forEach(film -> addDocument(film, genres.getOrDefault(film.getFilmId(), List.of())));
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, List<String>> loadGenres(Collection<Long> filmIds) {
+        Map<Long, List<String>> genres = new HashMap<>();
+        if (filmIds.isEmpty()) {
+            return genres;
+        }
+        for (Object[] row : filmGenreRepository.findGenreNamesByFilmIds(filmIds)) {
+            genres.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return genres;
+    }
+
+    private void addDocument(FilmDto film, List<String> genres) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, film.getTitle(), TITLE);
+        addTerms(terms, film.getDescription(), DESCRIPTION);
+        addTerms(terms, film.getDirectorName(), DIRECTOR);
+        genres.forEach(genre -> addTerms(terms, genre, GENRE));
+        addTerms(terms, film.getAgeRating(), AGE_RATING);
+
+        Set<String> genreNames = new HashSet<>();
+        genres.forEach(genre -> genreNames.add(genre.toLowerCase(Locale.ROOT)));
+        Document document = new Document(film.getFilmId(), film.getTitle() != null ? film.getTitle() : "",
+                film.getAgeRating(), genreNames, film.getDuration(), film.getReleaseDate(), terms.keySet());
+        documents.put(film.getFilmId(), document);
+
+        terms.forEach((term, fields) -> {
+            Map<Long, Integer> films = postings.computeIfAbsent(term, t -> {
+                trigramsOf(t).forEach(trigram -> trigrams.computeIfAbsent(trigram, g -> new HashSet<>()).add(t));
+                return new HashMap<>();
+            });
+            films.put(film.getFilmId(), fields);
+        });
+    }
+
+    private void removeDocument(Long filmId) {
+        Document document = documents.remove(filmId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Map<Long, Integer> films = postings.get(term);
+            films.remove(filmId);
+            if (films.isEmpty()) {
+                postings.remove(term);
+                for (String trigram : trigramsOf(term)) {
+                    Set<String> terms = trigrams.get(trigram);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int field) {
+        tokenize(text).forEach(token -> terms.merge(token, field, (a, b) -> a | b));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е')))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static List<String> trigramsOf(String term) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            result.add(term.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Поля фильма для фильтров поиска; жанры в нижнем регистре
+    public record Document(Long filmId, String title, String ageRating, Set<String> genres,
+                           Integer duration, LocalDate releaseDate, Set<String> terms) {
+    }
+}
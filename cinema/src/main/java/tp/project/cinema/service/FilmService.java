@@ -1,9 +1,20 @@
 package tp.project.cinema.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tp.project.cinema.config.CacheConfig;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.DirectorDto;
+import tp.project.cinema.dto.FilmBrowseDto;
 import tp.project.cinema.dto.FilmDto;
 import tp.project.cinema.dto.FilmInfoListDto;
 import tp.project.cinema.dto.Mapping.CountryMapping;
@@ -18,8 +29,12 @@ import tp.project.cinema.repository.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,82 +50,141 @@ public class FilmService {
     private final GenreRepository genreRepository;
     private final FilmGenreRepository filmGenreRepository;
     private final FilmMapping filmMapping;
+    private final CursorPaging cursorPaging;
     private final CountryMapping countryMapping;
     private final DirectorMapping directorMapping;
+    private final CacheManager cacheManager;
+    private final FilmsOnScreen filmsOnScreen;
+    private final FilmSearchIndex filmSearchIndex;
+    private final FilmColumnStore filmColumnStore;
+    private final CatalogVersions catalogVersions;
+    private final HallSchedule hallSchedule;
+    private final SeatInventory seatInventory;
+
+    private static final Set<String> SEARCH_MODES = Set.of("index", "fulltext", "like");
+
+    @Value("${film.search.mode:index}")
+    private String searchMode;
+
+    // Опечатка в режиме поиска не должна молча включать индекс
+    @PostConstruct
+    void checkSearchMode() {
+        if (!SEARCH_MODES.contains(searchMode)) {
+            throw new IllegalStateException("Неизвестный режим поиска film.search.mode: " + searchMode
+                    + " (допустимы index, fulltext, like)");
+        }
+    }
 
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.FILMS)
     public List<FilmDto> getAllFilms() {
-        return filmRepository.findAll().stream()
-                .map(filmMapping::toDto)
-                .collect(Collectors.toList());
+        return withGenres(filmRepository.findAllListItems());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<FilmDto> getFilmsPage(String cursor, Integer limit) {
+        int pageSize = cursorPaging.resolveLimit(limit);
+        List<FilmDto> rows = filmRepository.findListItemsAfter(cursorPaging.decodeId(cursor), cursorPaging.probe(pageSize));
+        CursorPage<FilmDto> page = cursorPaging.page(rows, pageSize, film -> new Object[]{film.getFilmId()});
+        withGenres(page.getItems());
+        return page;
+    }
+
+    private List<FilmDto> withGenres(List<FilmDto> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        // Жанры всех фильмов одним запросом
+        Map<Long, FilmDto> byId = films.stream()
+                .collect(Collectors.toMap(FilmDto::getFilmId, film -> film));
+        for (Object[] row : filmGenreRepository.findGenreNamesByFilmIds(byId.keySet())) {
+            FilmDto film = byId.get((Long) row[0]);
+            if (film.getGenres() == null) {
+                film.setGenres(new ArrayList<>());
+            }
+            film.getGenres().add((String) row[1]);
+        }
+        return films;
+    }
+
+    @Cacheable(CacheConfig.FILM_BY_ID)
     public FilmDto getFilmById(Long id) {
         Film film = filmRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Фильм с ID " + id + " не найден"));
         return filmMapping.toDto(film);
     }
 
+    // Поиск по индексу: название ранжируется, жанр и рейтинг - точные фильтры
+    @Transactional(readOnly = true)
     public List<FilmDto> searchFilms(String title, String genre, String ageRating) {
-        List<Film> films;
-
-        if (title != null && !title.isEmpty() && genre != null && !genre.isEmpty() && ageRating != null && !ageRating.isEmpty()) {
-            // Поиск по всем трем параметрам
-            films = filmRepository.findByTitleContainingIgnoreCase(title);
-            films = films.stream()
-                    .filter(f -> f.getFilmGenreList().stream()
-                            .anyMatch(fg -> fg.getGenre().getGenreName().equalsIgnoreCase(genre)))
-                    .filter(f -> f.getAgeRating().getRatingValue().equalsIgnoreCase(ageRating))
-                    .collect(Collectors.toList());
-        } else if (title != null && !title.isEmpty() && genre != null && !genre.isEmpty()) {
-            // Поиск по названию и жанру
-            films = filmRepository.findByTitleContainingIgnoreCase(title).stream()
-                    .filter(f -> f.getFilmGenreList().stream()
-                            .anyMatch(fg -> fg.getGenre().getGenreName().equalsIgnoreCase(genre)))
-                    .collect(Collectors.toList());
-        } else if (title != null && !title.isEmpty() && ageRating != null && !ageRating.isEmpty()) {
-            // Поиск по названию и возрастному рейтингу
-            films = filmRepository.findByTitleContainingIgnoreCase(title).stream()
-                    .filter(f -> f.getAgeRating().getRatingValue().equalsIgnoreCase(ageRating))
-                    .collect(Collectors.toList());
-        } else if (genre != null && !genre.isEmpty() && ageRating != null && !ageRating.isEmpty()) {
-            // Поиск по жанру и возрастному рейтингу
-            films = filmRepository.findByGenreName(genre).stream()
-                    .filter(f -> f.getAgeRating().getRatingValue().equalsIgnoreCase(ageRating))
-                    .collect(Collectors.toList());
-        } else if (title != null && !title.isEmpty()) {
-            // Поиск только по названию
-            films = filmRepository.findByTitleContainingIgnoreCase(title);
-        } else if (genre != null && !genre.isEmpty()) {
-            // Поиск только по жанру
-            films = filmRepository.findByGenreName(genre);
-        } else if (ageRating != null && !ageRating.isEmpty()) {
-            // Поиск только по возрастному рейтингу
-            films = filmRepository.findByAgeRating(ageRating);
-        } else {
-            // Без параметров - возвращаем все фильмы
-            films = filmRepository.findAll();
-        }
+        return loadRanked(filmSearchIndex.search(title, FilmSearchIndex.TITLE,
+                document -> hasGenre(document, genre) && hasAgeRating(document, ageRating)));
+    }
 
-        return films.stream()
-                .map(filmMapping::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<FilmDto> advancedSearch(String title, String genre, String ageRating,
+                                        Short minDuration, Short maxDuration,
+                                        LocalDate startDate, LocalDate endDate) {
+        return loadRanked(filmSearchIndex.search(title, FilmSearchIndex.TITLE, document ->
+                hasGenre(document, genre) && hasAgeRating(document, ageRating)
+                        && (minDuration == null || document.duration() != null && document.duration() >= minDuration)
+                        && (maxDuration == null || document.duration() != null && document.duration() <= maxDuration)
+                        && (startDate == null || document.releaseDate() != null && !document.releaseDate().isBefore(startDate))
+                        && (endDate == null || document.releaseDate() != null && !document.releaseDate().isAfter(endDate))));
+    }
+
+    private boolean hasGenre(FilmSearchIndex.Document document, String genre) {
+        return genre == null || genre.isEmpty() || document.genres().contains(genre.toLowerCase(Locale.ROOT));
+    }
+
+    private boolean hasAgeRating(FilmSearchIndex.Document document, String ageRating) {
+        return ageRating == null || ageRating.isEmpty() || ageRating.equalsIgnoreCase(document.ageRating());
+    }
+
+    // Фасетный поиск: фильмы под фильтрами и счётчики по жанру, рейтингу, стране и длительности за один запрос
+    @Transactional(readOnly = true)
+    public FilmBrowseDto browseFilms(Set<String> genres, Set<String> ageRatings,
+                                     Set<String> countries, Set<String> durations) {
+        Map<String, Set<String>> filters = new HashMap<>();
+        filters.put(FilmColumnStore.GENRE, genres);
+        filters.put(FilmColumnStore.AGE_RATING, ageRatings);
+        filters.put(FilmColumnStore.COUNTRY, countries);
+        filters.put(FilmColumnStore.DURATION, durations);
+
+        FilmColumnStore.Result result = filmColumnStore.browse(filters);
+        FilmBrowseDto browseDto = new FilmBrowseDto();
+        browseDto.setFilms(loadRanked(result.filmIds()));
+        browseDto.setTotal(result.filmIds().size());
+        browseDto.setFacets(result.facets());
+        return browseDto;
     }
 
+    // Строки фильмов в порядке, который вернул индекс
+    private List<FilmDto> loadRanked(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, FilmDto> byId = filmRepository.findListItemsByIds(filmIds).stream()
+                .collect(Collectors.toMap(FilmDto::getFilmId, film -> film));
+        return withGenres(filmIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    // Вышедшие фильмы, у которых есть будущие неотменённые сеансы
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.NOW_PLAYING)
     public List<FilmDto> getNowPlayingFilms() {
-        List<Film> releasedFilms = filmRepository.findReleasedFilms();
-
-        // Фильтруем только те фильмы, у которых есть активные сеансы
-        return releasedFilms.stream()
-                .filter(film -> {
-                    List<Session> sessions = sessionRepository.findByFilmFilmId(film.getFilmId());
-                    return sessions.stream()
-                            .anyMatch(session -> session.getDateTime().isAfter(java.time.LocalDateTime.now())
-                                    && !"CANCELLED".equals(session.getStatus()));
-                })
-                .map(filmMapping::toDto)
-                .collect(Collectors.toList());
+        Set<Long> filmIds = filmsOnScreen.getFilmIds();
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withGenres(filmRepository.findReleasedListItemsByIds(filmIds));
     }
 
+    @Cacheable(CacheConfig.COMING_SOON)
     public List<FilmDto> getComingSoonFilms() {
         return filmRepository.findUpcomingFilms().stream()
                 .map(filmMapping::toDto)
@@ -124,28 +198,17 @@ public class FilmService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SessionDto> getFilmSessions(Long filmId) {
         if (!filmRepository.existsById(filmId)) {
             throw new ResourceNotFoundException("Фильм с ID " + filmId + " не найден");
         }
 
-        return sessionRepository.findByFilmFilmId(filmId).stream()
-                .map(session -> {
-                    SessionDto dto = new SessionDto();
-                    dto.setSessionId(session.getSessionId());
-                    dto.setDateTime(session.getDateTime());
-                    dto.setStatus(session.getStatus());
-                    dto.setFilmId(session.getFilm().getFilmId());
-                    dto.setHallId(session.getHall().getHallId());
-                    dto.setFilmTitle(session.getFilm().getTitle());
-                    dto.setHallName(session.getHall().getHallName());
-                    dto.setDuration((int) session.getFilm().getDuration());
-                    dto.setBasePrice(session.getHall().getBasePrice().doubleValue());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return sessionRepository.findListItemsByFilm(filmId);
     }
 
+    // Новый фильм попадает только в списки, записи других фильмов не затрагиваются
+    @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.NOW_PLAYING, CacheConfig.COMING_SOON}, allEntries = true)
     public FilmDto createFilm(FilmDto filmDto) {
         // Проверяем и находим режиссера
         Director director = directorRepository.findById(filmDto.getDirectorId())
@@ -186,6 +249,9 @@ public class FilmService {
             addGenresToFilm(savedFilm, filmDto.getGenres());
         }
 
+        filmSearchIndex.refresh(savedFilm.getFilmId());
+        filmColumnStore.invalidate();
+        catalogVersions.changed(CatalogVersions.Aggregate.FILMS);
         return filmMapping.toDto(savedFilm);
     }
 
@@ -208,6 +274,10 @@ public class FilmService {
         }
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.FILM_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.NOW_PLAYING, CacheConfig.COMING_SOON}, allEntries = true)
+    })
     public FilmDto updateFilm(Long id, FilmDto filmDto) {
         Film existingFilm = filmRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Фильм с ID " + id + " не найден"));
@@ -239,6 +309,10 @@ public class FilmService {
 
         // Обновляем остальные поля
         if (filmDto.getTitle() != null && !filmDto.getTitle().isEmpty()) {
+            if (!filmDto.getTitle().equals(existingFilm.getTitle())) {
+                // Название фильма хранится в картах мест его сеансов
+                seatInventory.evictFilm(id);
+            }
             existingFilm.setTitle(filmDto.getTitle());
         }
         if (filmDto.getDescription() != null && !filmDto.getDescription().isEmpty()) {
@@ -246,6 +320,8 @@ public class FilmService {
         }
         if (filmDto.getDuration() != null) {
             existingFilm.setDuration(filmDto.getDuration());
+            // Сеансы фильма занимают залы на новое время
+            hallSchedule.invalidate();
         }
         if (filmDto.getReleaseDate() != null) {
             existingFilm.setReleaseDate(filmDto.getReleaseDate());
@@ -267,35 +343,52 @@ public class FilmService {
         }
 
         Film updatedFilm = filmRepository.save(existingFilm);
+        filmSearchIndex.refresh(id);
+        filmColumnStore.invalidate();
+        catalogVersions.changed(CatalogVersions.Aggregate.FILMS);
         return filmMapping.toDto(updatedFilm);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.FILM_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = {CacheConfig.FILMS, CacheConfig.NOW_PLAYING, CacheConfig.COMING_SOON}, allEntries = true)
+    })
     public void deleteFilm(Long id) {
         if (!filmRepository.existsById(id)) {
             throw new ResourceNotFoundException("Фильм с ID " + id + " не найден");
         }
         filmRepository.deleteById(id);
+        filmSearchIndex.remove(id);
+        hallSchedule.invalidate();
+        seatInventory.evictFilm(id);
+        filmColumnStore.invalidate();
+        catalogVersions.changed(CatalogVersions.Aggregate.FILMS);
     }
 
+    @Transactional(readOnly = true)
     public List<FilmDto> getActiveFilms() {
         // Фильмы с активными (не отмененными) сеансами в будущем
-        List<Film> allFilms = filmRepository.findAll();
-
-        return allFilms.stream()
-                .filter(film -> {
-                    List<Session> sessions = sessionRepository.findByFilmFilmId(film.getFilmId());
-                    return sessions.stream()
-                            .anyMatch(session -> session.getDateTime().isAfter(java.time.LocalDateTime.now())
-                                    && !"CANCELLED".equals(session.getStatus()));
-                })
-                .map(filmMapping::toDto)
-                .collect(Collectors.toList());
+        Set<Long> filmIds = filmsOnScreen.getFilmIds();
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withGenres(filmRepository.findListItemsByIds(filmIds));
     }
 
+    // index - индекс в памяти, fulltext - tsvector и GIN-индекс в PostgreSQL, like - прежний LIKE по БД
+    @Transactional(readOnly = true)
     public List<FilmDto> searchByKeyword(String keyword) {
-        return filmRepository.searchByKeyword(keyword).stream()
-                .map(filmMapping::toDto)
-                .collect(Collectors.toList());
+        if (keyword == null || keyword.isBlank()) {
+            return withGenres(filmRepository.findAllListItems());
+        }
+        return switch (searchMode) {
+            case "fulltext" -> loadRanked(filmRepository.searchIdsByFullText(keyword));
+            case "like" -> filmRepository.searchByKeyword(keyword).stream()
+                    .map(filmMapping::toDto)
+                    .collect(Collectors.toList());
+            case "index" -> loadRanked(filmSearchIndex.search(keyword, FilmSearchIndex.ALL_FIELDS, document -> true));
+            default -> throw new IllegalStateException("Неизвестный режим поиска: " + searchMode);
+        };
     }
 
     // Дополнительные методы
@@ -383,6 +476,7 @@ public class FilmService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(CacheConfig.FILM_INFO)
     public FilmInfoListDto getCountriesAndDirectors() {
         FilmInfoListDto filmInfoListDto = new FilmInfoListDto();
         filmInfoListDto.setCountries(countryRepository.findAll()
@@ -396,6 +490,7 @@ public class FilmService {
         return filmInfoListDto;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.FILM_INFO, allEntries = true)
     public DirectorDto createDirector(DirectorDto directorDto) {
 
         Director findDirector = directorRepository.findByNameAndSurnameContaining(directorDto.getDirectorNameAndSurname().split(" ")[1],
@@ -415,8 +510,28 @@ public class FilmService {
 
 
         directorRepository.save(director);
+        catalogVersions.changed(CatalogVersions.Aggregate.FILMS);
 
 
         return directorMapping.toDto(director);
     }
-}
\ No newline at end of file
+
+    // Попадания и промахи по каждому кэшу каталога
+    public Map<String, Map<String, Object>> getCatalogCacheStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (!(cacheManager.getCache(name) instanceof CaffeineCache cache)) {
+                continue;
+            }
+            CacheStats stats = cache.getNativeCache().stats();
+            Map<String, Object> cacheStatistics = new LinkedHashMap<>();
+            cacheStatistics.put("size", cache.getNativeCache().estimatedSize());
+            cacheStatistics.put("hits", stats.hitCount());
+            cacheStatistics.put("misses", stats.missCount());
+            cacheStatistics.put("hitRate", stats.hitRate());
+            cacheStatistics.put("evictions", stats.evictionCount());
+            statistics.put(name, cacheStatistics);
+        }
+        return statistics;
+    }
+}
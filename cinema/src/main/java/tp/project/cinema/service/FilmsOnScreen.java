@@ -0,0 +1,100 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.config.CacheConfig;
+import tp.project.cinema.repository.SessionRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Фильмы в прокате: для каждого фильма хранится время его последнего неотменённого сеанса.
+// Фильм в прокате, пока это время не прошло, поэтому набор не нужно пересчитывать по часам -
+// он загружается одним агрегирующим запросом и правится при создании, изменении и отмене сеансов
+@Component
+@RequiredArgsConstructor
+public class FilmsOnScreen {
+
+    private final SessionRepository sessionRepository;
+    private final CacheManager cacheManager;
+
+    private final Object lock = new Object();
+    private volatile Map<Long, LocalDateTime> lastSessions;
+
+    public Set<Long> getFilmIds() {
+        LocalDateTime now = LocalDateTime.now();
+        return load().entrySet().stream()
+                .filter(entry -> entry.getValue().isAfter(now))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    // Новый сеанс может только продлить прокат фильма
+    public void sessionScheduled(Long filmId, LocalDateTime dateTime) {
+        AfterCommit.run(() -> {
+            synchronized (lock) {
+                if (lastSessions != null) {
+                    lastSessions.merge(filmId, dateTime, (current, added) -> added.isAfter(current) ? added : current);
+                }
+            }
+            evictFilmLists(filmId);
+        });
+    }
+
+    // После отмены, удаления или переноса сеанса время последнего сеанса фильма перечитывается.
+    // Запрос выполняется в текущей транзакции и видит её изменения, в набор результат попадает после коммита
+    public void refresh(Long filmId) {
+        LocalDateTime lastSession = sessionRepository.findLastSessionTime(filmId).orElse(null);
+        AfterCommit.run(() -> {
+            synchronized (lock) {
+                if (lastSessions != null) {
+                    if (lastSession != null) {
+                        lastSessions.put(filmId, lastSession);
+                    } else {
+                        lastSessions.remove(filmId);
+                    }
+                }
+            }
+            evictFilmLists(filmId);
+        });
+    }
+
+    private Map<Long, LocalDateTime> load() {
+        Map<Long, LocalDateTime> loaded = lastSessions;
+        if (loaded != null) {
+            return loaded;
+        }
+        // Изменения ждут окончания загрузки на том же замке и не теряются
+        synchronized (lock) {
+            if (lastSessions == null) {
+                Map<Long, LocalDateTime> map = new ConcurrentHashMap<>();
+                for (Object[] row : sessionRepository.findLastSessionTimes(LocalDateTime.now())) {
+                    map.put((Long) row[0], (LocalDateTime) row[1]);
+                }
+                lastSessions = map;
+            }
+            return lastSessions;
+        }
+    }
+
+    // Списки фильмов и карточка фильма несут число его сеансов, а "сейчас в прокате" зависит от набора -
+    // всё это сбрасывается при любом изменении сеансов фильма
+    private void evictFilmLists(Long filmId) {
+        for (String cacheName : List.of(CacheConfig.NOW_PLAYING, CacheConfig.COMING_SOON, CacheConfig.FILMS)) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        Cache filmById = cacheManager.getCache(CacheConfig.FILM_BY_ID);
+        if (filmById != null) {
+            filmById.evict(filmId);
+        }
+    }
+}
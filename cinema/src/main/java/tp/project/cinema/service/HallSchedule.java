@@ -0,0 +1,218 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.repository.SessionRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Занятость залов в памяти: по каждому залу - интервалы [начало, начало + длительность фильма + уборка)
+// неотменённых сеансов, упорядоченные по началу. Пересечение с интервалом [from, to) ищется
+// в окне начал (from - самый длинный интервал зала, to): O(log n) на поиск окна плюс найденные сеансы.
+// Зал загружается из БД при первом обращении, дальше поддерживается SessionService после коммита
+@Component
+@RequiredArgsConstructor
+public class HallSchedule {
+
+    private final SessionRepository sessionRepository;
+
+    @Value("${session.schedule.cleaning-minutes:20}")
+    private int cleaningMinutes;
+
+    private final Map<Short, Timeline> halls = new ConcurrentHashMap<>();
+
+    public int getCleaningMinutes() {
+        return cleaningMinutes;
+    }
+
+    // Интервал, который сеанс занимает в зале
+    public Slot slot(Integer sessionId, LocalDateTime dateTime, int durationMinutes) {
+        return new Slot(sessionId, dateTime, dateTime.plusMinutes(durationMinutes + cleaningMinutes));
+    }
+
+    // Сеансы зала, пересекающиеся с [from, to); сеанс exceptSessionId (переносимый) не учитывается
+    public List<Slot> conflicts(Short hallId, LocalDateTime from, LocalDateTime to, Integer exceptSessionId) {
+        Timeline timeline = loaded(hallId);
+        synchronized (timeline) {
+            return timeline.overlapping(from, to, exceptSessionId);
+        }
+    }
+
+    // Дочитать в индекс сеансы зала из БД, пересекающиеся с [from, to). Вызывается под блокировкой строки зала:
+    // сеансы, закоммиченные другой транзакцией, в БД уже видны, а в индекс попадают только после её коммита.
+    // Сеанс exceptSessionId (переносимый) пропускается - его строка может нести ещё не закоммиченные изменения
+    public void sync(Short hallId, LocalDateTime from, LocalDateTime to, Integer exceptSessionId) {
+        Timeline timeline = loaded(hallId);
+        synchronized (timeline) {
+            for (Object[] row : sessionRepository.findHallOccupancyBetween(hallId, from, to, cleaningMinutes)) {
+                Integer sessionId = ((Number) row[0]).intValue();
+                if (!sessionId.equals(exceptSessionId)) {
+                    timeline.put(slot(sessionId, toDateTime(row[1]), ((Number) row[2]).intValue()));
+                }
+            }
+        }
+    }
+
+    // План пакета сеансов: кандидаты проверяются против сохранённых сеансов и уже принятых кандидатов плана
+    public Plan plan() {
+        return new Plan();
+    }
+
+    // Сеанс создан или изменён: после коммита его интервал занимает новое место.
+    // Отменённый сеанс зал не занимает
+    public void scheduled(Short hallId, Integer sessionId, LocalDateTime dateTime, int durationMinutes, String status) {
+        boolean occupies = dateTime != null && !SessionLifecycle.isCancelled(status);
+        AfterCommit.run(() -> {
+            halls.values().forEach(timeline -> {
+                synchronized (timeline) {
+                    timeline.remove(sessionId);
+                }
+            });
+            Timeline timeline = halls.get(hallId);
+            if (occupies && timeline != null) {
+                synchronized (timeline) {
+                    timeline.put(slot(sessionId, dateTime, durationMinutes));
+                }
+            }
+        });
+    }
+
+    // Сеанс удалён или отменён
+    public void released(Short hallId, Integer sessionId) {
+        AfterCommit.run(() -> {
+            Timeline timeline = halls.get(hallId);
+            if (timeline != null) {
+                synchronized (timeline) {
+                    timeline.remove(sessionId);
+                }
+            }
+        });
+    }
+
+    // Зал удалён вместе с сеансами
+    public void evictHall(Short hallId) {
+        AfterCommit.run(() -> halls.remove(hallId));
+    }
+
+    // Изменилась длительность или удалён фильм: интервалы всех залов перечитываются при следующем обращении
+    public void invalidate() {
+        AfterCommit.run(halls::clear);
+    }
+
+    // Зал попадает в карту до загрузки: изменения, закоммиченные во время загрузки, ждут её под
+    // блокировкой зала и применяются поверх прочитанного (повторное применение ничего не меняет)
+    private Timeline loaded(Short hallId) {
+        Timeline timeline = halls.computeIfAbsent(hallId, id -> new Timeline());
+        synchronized (timeline) {
+            if (!timeline.loaded) {
+                for (Object[] row : sessionRepository.findHallOccupancy(hallId)) {
+                    timeline.put(slot((Integer) row[0], (LocalDateTime) row[1], ((Number) row[2]).intValue()));
+                }
+                timeline.loaded = true;
+            }
+        }
+        return timeline;
+    }
+
+    // Нативный запрос может вернуть время как java.sql.Timestamp
+    private static LocalDateTime toDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    // Занятый интервал зала [start, end); у кандидата плана вместо sessionId - его номер
+    public record Slot(Integer sessionId, LocalDateTime start, LocalDateTime end) {
+
+        public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return start.isBefore(to) && from.isBefore(end);
+        }
+    }
+
+    // Сеансы, с которыми пересекается кандидат: сохранённые и принятые ранее кандидаты (их номера в плане)
+    public record Conflicts(List<Slot> sessions, List<Integer> planned) {
+
+        public boolean isEmpty() {
+            return sessions.isEmpty() && planned.isEmpty();
+        }
+    }
+
+    public final class Plan {
+        // Кандидаты хранятся как интервалы с номером кандидата вместо sessionId
+        private final Map<Short, Timeline> planned = new HashMap<>();
+
+        private Plan() {
+        }
+
+        public Conflicts check(Short hallId, LocalDateTime from, LocalDateTime to) {
+            List<Slot> sessions = conflicts(hallId, from, to, null);
+            Timeline timeline = planned.get(hallId);
+            List<Integer> numbers = timeline == null ? List.of()
+                    : timeline.overlapping(from, to, null).stream().map(Slot::sessionId).toList();
+            return new Conflicts(sessions, numbers);
+        }
+
+        public void accept(Short hallId, int number, LocalDateTime from, LocalDateTime to) {
+            planned.computeIfAbsent(hallId, id -> new Timeline()).put(new Slot(number, from, to));
+        }
+    }
+
+    // Интервалы зала по началу; у совпадающих начал ключ - пара (начало, sessionId)
+    private static final class Timeline {
+        private final NavigableMap<Key, Slot> byStart = new TreeMap<>();
+        private final Map<Integer, Key> keys = new HashMap<>();
+        private final TreeMap<Duration, Integer> lengths = new TreeMap<>();
+        private boolean loaded;
+
+        void put(Slot slot) {
+            remove(slot.sessionId());
+            Key key = new Key(slot.start(), slot.sessionId());
+            byStart.put(key, slot);
+            keys.put(slot.sessionId(), key);
+            lengths.merge(Duration.between(slot.start(), slot.end()), 1, Integer::sum);
+        }
+
+        void remove(Integer sessionId) {
+            Key key = keys.remove(sessionId);
+            if (key == null) {
+                return;
+            }
+            Slot slot = byStart.remove(key);
+            lengths.computeIfPresent(Duration.between(slot.start(), slot.end()),
+                    (length, count) -> count > 1 ? count - 1 : null);
+        }
+
+        // Пересекающийся с [from, to) интервал начинается раньше to и не раньше from минус самый длинный интервал
+        List<Slot> overlapping(LocalDateTime from, LocalDateTime to, Integer exceptSessionId) {
+            List<Slot> result = new ArrayList<>();
+            if (byStart.isEmpty() || !from.isBefore(to)) {
+                return result;
+            }
+            LocalDateTime windowStart = from.minus(lengths.lastKey());
+            for (Slot slot : byStart.subMap(new Key(windowStart, Integer.MIN_VALUE), true,
+                    new Key(to, Integer.MIN_VALUE), false).values()) {
+                if (slot.overlaps(from, to) && !slot.sessionId().equals(exceptSessionId)) {
+                    result.add(slot);
+                }
+            }
+            return result;
+        }
+    }
+
+    private record Key(LocalDateTime start, Integer sessionId) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(sessionId, other.sessionId);
+        }
+    }
+}
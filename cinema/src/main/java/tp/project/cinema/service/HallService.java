@@ -5,12 +5,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tp.project.cinema.dto.HallDto;
 import tp.project.cinema.dto.Mapping.HallMapping;
-import tp.project.cinema.dto.Mapping.SeatMapping;
 import tp.project.cinema.dto.SeatDto;
 import tp.project.cinema.exception.ResourceNotFoundException;
 import tp.project.cinema.model.Hall;
 import tp.project.cinema.model.HallType;
-import tp.project.cinema.model.Seat;
 import tp.project.cinema.repository.*;
 
 import java.math.BigDecimal;
@@ -31,7 +29,9 @@ public class HallService {
     private final SeatService seatService;
     private final SessionRepository sessionRepository;
     private final HallMapping hallMapping;
-    private final SeatMapping seatMapping;
+    private final SeatInventory seatInventory;
+    private final CatalogVersions catalogVersions;
+    private final HallSchedule hallSchedule;
 
     public List<HallDto> getAllHalls() {
         return hallRepository.findAll().stream()
@@ -92,6 +92,9 @@ public class HallService {
             throw new ResourceNotFoundException("Зал с ID " + id + " не найден");
         }
         hallRepository.deleteById(id);
+        seatInventory.evictHall(id);
+        hallSchedule.evictHall(id);
+        catalogVersions.changed(CatalogVersions.Aggregate.HALLS);
     }
 
     public HallDto createHall(HallDto hallDto) {
@@ -121,10 +124,10 @@ public class HallService {
         }
 
         Hall savedHall = hallRepository.save(hall);
-        for(SeatDto seatDto : hallDto.getSeatList()) {
-            seatDto.setHallId(savedHall.getHallId());
-            seatService.createSeat(seatDto);
+        if (hallDto.getSeatList() != null) {
+            seatService.syncHallSeats(savedHall, hallDto.getSeatList());
         }
+        catalogVersions.changed(CatalogVersions.Aggregate.HALLS);
         return hallMapping.toDto(savedHall);
     }
 
@@ -162,18 +165,12 @@ public class HallService {
         }
         Hall updatedHall = hallRepository.save(existingHall);
 
-        // Удаление мест
-        List<Seat> seatList = seatRepository.findByHallHallId(id);
-        for(Seat seat : seatList) {
-            if(!hallDto.getSeatList().contains(seatMapping.toDto(seat)))
-                seatRepository.delete(seat);
-        }
-
-        // Создание новых мест
-        for(SeatDto seatDto : hallDto.getSeatList()) {
-            seatDto.setHallId(id);
-            seatService.createSeat(seatDto);
+        // Синхронизация схемы зала: лишние места удаляются, новые добавляются пакетом
+        if (hallDto.getSeatList() != null) {
+            seatService.syncHallSeats(updatedHall, hallDto.getSeatList());
         }
+        seatInventory.evictHall(id);
+        catalogVersions.changed(CatalogVersions.Aggregate.HALLS);
         return hallMapping.toDto(updatedHall);
     }
 
@@ -188,6 +185,7 @@ public class HallService {
 
         hall.setStatus(status.toUpperCase());
         Hall updatedHall = hallRepository.save(hall);
+        catalogVersions.changed(CatalogVersions.Aggregate.HALLS);
         return hallMapping.toDto(updatedHall);
     }
 
@@ -0,0 +1,80 @@
+package tp.project.cinema.service;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// Хешированное колесо таймеров: элемент попадает в ячейку по времени истечения,
+// один поток раз в тик обходит только текущую ячейку
+public class HoldTimerWheel<T> {
+
+    private final long tickMillis;
+    private final Queue<T>[] buckets;
+    private final ToLongFunction<T> deadline;
+    private final Consumer<T> onExpire;
+    private final ScheduledExecutorService ticker;
+
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public HoldTimerWheel(int wheelSize, long tickMillis, ToLongFunction<T> deadline, Consumer<T> onExpire) {
+        this.tickMillis = tickMillis;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.deadline = deadline;
+        this.onExpire = onExpire;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        lastTick = System.currentTimeMillis() / tickMillis;
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    public void schedule(T item) {
+        long tick = deadline.applyAsLong(item) / tickMillis;
+        buckets[(int) Math.floorMod(tick, (long) buckets.length)].add(item);
+    }
+
+    private void advance() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMillis;
+        // Если поток отстал, догоняем все пропущенные ячейки (но не больше одного оборота)
+        long from = Math.max(lastTick + 1, currentTick - buckets.length + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            expireBucket(buckets[(int) Math.floorMod(tick, (long) buckets.length)], now);
+        }
+        lastTick = currentTick;
+    }
+
+    private void expireBucket(Queue<T> bucket, long now) {
+        Iterator<T> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            T item = iterator.next();
+            // Элементы следующих оборотов колеса остаются в ячейке
+            if (deadline.applyAsLong(item) <= now) {
+                iterator.remove();
+                try {
+                    onExpire.accept(item);
+                } catch (RuntimeException ignored) {
+                    // Истечение одной брони не должно останавливать колесо
+                }
+            }
+        }
+    }
+}
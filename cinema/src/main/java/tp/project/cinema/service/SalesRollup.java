@@ -0,0 +1,188 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tp.project.cinema.model.HourlySalesDirty;
+import tp.project.cinema.repository.BookingRepository;
+import tp.project.cinema.repository.HourlySalesDirtyRepository;
+import tp.project.cinema.repository.HourlySalesRepository;
+import tp.project.cinema.repository.TicketRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Почасовая свёртка продаж по сеансам (hourly_sales): выручка и число билетов, стоимость и число броней.
+// Фоновая задача сворачивает закрытые часы до watermark; статистика за период читает свёрнутые часы
+// и только неполные часы по краям - из билетов и броней, поэтому результат совпадает с подсчётом по строкам.
+// Изменения уже свёрнутых часов (удаление, пересчёт стоимости брони) помечаются в транзакции изменения
+// и пересчитываются на следующем тике
+@Component
+@RequiredArgsConstructor
+public class SalesRollup {
+
+    private final HourlySalesRepository hourlySalesRepository;
+    private final HourlySalesDirtyRepository hourlySalesDirtyRepository;
+    private final TicketRepository ticketRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Час сворачивается через grace-minutes после окончания: транзакции, начатые в этом часе, успевают завершиться
+    @Value("${sales.rollup.grace-minutes:5}")
+    private long graceMinutes;
+
+    // Первичная свёртка истории идёт кусками, чтобы не держать одну длинную транзакцию
+    @Value("${sales.rollup.chunk-days:7}")
+    private long chunkDays;
+
+    // Часы до watermark свёрнуты; null - свёртка ещё не загружена, статистика считается по строкам
+    private volatile LocalDateTime watermark;
+
+    @Scheduled(fixedDelayString = "${sales.rollup.tick-ms:60000}", initialDelayString = "${sales.rollup.initial-delay-ms:10000}")
+    public void tick() {
+        LocalDateTime target = LocalDateTime.now().minusMinutes(graceMinutes).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = watermark != null ? watermark : initialWatermark(target);
+        while (from.isBefore(target)) {
+            LocalDateTime to = min(from.plusDays(chunkDays), target);
+            LocalDateTime chunkFrom = from;
+            transactionTemplate.executeWithoutResult(status -> rollUp(chunkFrom, to));
+            from = to;
+            watermark = to;
+        }
+        if (watermark == null) {
+            watermark = from;
+        }
+
+        for (HourlySalesDirty dirty : hourlySalesDirtyRepository.findByBucketHourBeforeOrderByBucketHour(watermark)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                rollUp(dirty.getBucketHour(), dirty.getBucketHour().plusHours(1));
+                hourlySalesDirtyRepository.deleteMarked(dirty.getBucketHour(), dirty.getMarkedAt());
+            });
+        }
+    }
+
+    // Вызывается в транзакции изменения с временем создания затронутых билетов и броней.
+    // Текущий час ещё не свёрнут и отметок не требует
+    public void changed(Collection<LocalDateTime> times) {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Set<LocalDateTime> hours = new TreeSet<>();
+        for (LocalDateTime time : times) {
+            if (time != null && time.isBefore(currentHour)) {
+                hours.add(time.truncatedTo(ChronoUnit.HOURS));
+            }
+        }
+        hours.forEach(hourlySalesDirtyRepository::mark);
+    }
+
+    public void changed(LocalDateTime... times) {
+        changed(Arrays.asList(times));
+    }
+
+    // Продажи за период [start, end] (конец включительно, как BETWEEN)
+    public Sales sales(LocalDateTime start, LocalDateTime end) {
+        Sales sales = Sales.EMPTY;
+        for (Part part : split(start, end)) {
+            if (part.rolledUp()) {
+                Object[] row = hourlySalesRepository.sumBetween(part.from(), part.to()).get(0);
+                sales = sales.plus(new Sales(decimal(row[0]), ((Number) row[1]).longValue(),
+                        decimal(row[2]), ((Number) row[3]).longValue()));
+            } else {
+                Object[] tickets = ticketRepository.sumPricesBetween(part.from(), part.to()).get(0);
+                Object[] bookings = bookingRepository.sumCostsBetween(part.from(), part.to()).get(0);
+                sales = sales.plus(new Sales(decimal(tickets[0]), ((Number) tickets[1]).longValue(),
+                        decimal(bookings[0]), ((Number) bookings[1]).longValue()));
+            }
+        }
+        return sales;
+    }
+
+    // Число билетов по залам за период [start, end]
+    public Map<String, Long> ticketsByHall(LocalDateTime start, LocalDateTime end) {
+        Map<String, Long> tickets = new TreeMap<>();
+        for (Part part : split(start, end)) {
+            List<Object[]> rows = part.rolledUp()
+                    ? hourlySalesRepository.countTicketsByHallBetween(part.from(), part.to())
+                    : ticketRepository.countTicketsByHallBetween(part.from(), part.to());
+            for (Object[] row : rows) {
+                tickets.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        return tickets;
+    }
+
+    // Период делится на неполный час в начале, свёрнутые целые часы и остаток после них
+    private List<Part> split(LocalDateTime start, LocalDateTime end) {
+        // Время в PostgreSQL хранится с точностью до микросекунды: [start, end] = [start, end + 1 мкс)
+        LocalDateTime to = end.plus(1, ChronoUnit.MICROS);
+        LocalDateTime rolledUpTo = watermark;
+        if (!start.isBefore(to)) {
+            return List.of();
+        }
+        LocalDateTime firstHour = start.truncatedTo(ChronoUnit.HOURS);
+        if (firstHour.isBefore(start)) {
+            firstHour = firstHour.plusHours(1);
+        }
+        LocalDateTime lastHour = rolledUpTo == null ? firstHour : min(to.truncatedTo(ChronoUnit.HOURS), rolledUpTo);
+        if (!firstHour.isBefore(lastHour)) {
+            return List.of(new Part(start, to, false));
+        }
+        List<Part> parts = new ArrayList<>(3);
+        if (start.isBefore(firstHour)) {
+            parts.add(new Part(start, firstHour, false));
+        }
+        parts.add(new Part(firstHour, lastHour, true));
+        if (lastHour.isBefore(to)) {
+            parts.add(new Part(lastHour, to, false));
+        }
+        return parts;
+    }
+
+    private void rollUp(LocalDateTime from, LocalDateTime to) {
+        hourlySalesRepository.deleteBetween(from, to);
+        hourlySalesRepository.rollUp(from, to);
+    }
+
+    // После перезапуска свёртка продолжается с часа после последней свёрнутой строки
+    // (пустые часы пересчитываются повторно, это ничего не меняет); пустая таблица сворачивается с первой продажи
+    private LocalDateTime initialWatermark(LocalDateTime target) {
+        LocalDateTime lastHour = hourlySalesRepository.findLastHour();
+        if (lastHour != null) {
+            return lastHour.plusHours(1);
+        }
+        LocalDateTime firstSale = hourlySalesRepository.findFirstSaleTime();
+        return firstSale != null ? min(firstSale.truncatedTo(ChronoUnit.HOURS), target) : target;
+    }
+
+    // SUM по пустому набору приходит как целый 0 из COALESCE
+    private static BigDecimal decimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    public record Sales(BigDecimal ticketRevenue, long tickets, BigDecimal bookingRevenue, long bookings) {
+
+        static final Sales EMPTY = new Sales(BigDecimal.ZERO, 0, BigDecimal.ZERO, 0);
+
+        Sales plus(Sales other) {
+            return new Sales(ticketRevenue.add(other.ticketRevenue), tickets + other.tickets,
+                    bookingRevenue.add(other.bookingRevenue), bookings + other.bookings);
+        }
+    }
+
+    private record Part(LocalDateTime from, LocalDateTime to, boolean rolledUp) {
+    }
+}
@@ -0,0 +1,114 @@
+package tp.project.cinema.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Жадная раскладка сеансов по залам. Каждый день залы заполняются от открытия: следующим берётся зал,
+// который раньше всех освободился, и в него ставится фильм с наибольшим приоритетом
+// вес / (уже выделенные фильму места + вместимость зала), который успевает закончиться до закрытия.
+// Так места делятся между фильмами пропорционально весам, а большие залы достаются востребованным фильмам.
+// После сеанса зал занят уборкой; начала сеансов выравниваются на шаг от открытия.
+// Работает без БД: занятость залов существующими сеансами приходит через Occupancy
+public final class SchedulePacker {
+
+    private final int cleaningMinutes;
+    private final int stepMinutes;
+
+    public SchedulePacker(int cleaningMinutes, int stepMinutes) {
+        if (stepMinutes <= 0) {
+            throw new IllegalArgumentException("Шаг начала сеансов должен быть положительным");
+        }
+        this.cleaningMinutes = cleaningMinutes;
+        this.stepMinutes = stepMinutes;
+    }
+
+    // closesAt не позже opensAt - зал закрывается после полуночи следующего дня
+    public List<Placement> pack(List<PackHall> halls, List<PackFilm> films, LocalDate from, LocalDate to,
+                                LocalTime opensAt, LocalTime closesAt, Occupancy occupancy) {
+        List<Placement> placements = new ArrayList<>();
+        Map<Long, Long> seats = new HashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDateTime open = day.atTime(opensAt);
+            LocalDateTime close = closesAt.isAfter(opensAt) ? day.atTime(closesAt) : day.plusDays(1).atTime(closesAt);
+            LocalDate today = day;
+            List<PackFilm> released = films.stream()
+                    .filter(film -> film.releaseDate() == null || !film.releaseDate().isAfter(today))
+                    .toList();
+            if (released.isEmpty()) {
+                continue;
+            }
+
+            PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparing(Cursor::at)
+                    .thenComparing(cursor -> -cursor.hall().capacity()));
+            halls.forEach(hall -> cursors.add(new Cursor(hall, open)));
+            while (!cursors.isEmpty()) {
+                Cursor cursor = cursors.poll();
+                PackFilm film = best(released, seats, cursor, close);
+                if (film == null) {
+                    continue;
+                }
+                LocalDateTime start = cursor.at();
+                LocalDateTime end = start.plusMinutes(film.duration() + cleaningMinutes);
+                LocalDateTime busyUntil = occupancy.busyUntil(cursor.hall().hallId(), start, end);
+                if (busyUntil != null) {
+                    // Зал занят существующим сеансом - ищем место после него
+                    cursors.add(new Cursor(cursor.hall(), align(open, busyUntil)));
+                    continue;
+                }
+                placements.add(new Placement(cursor.hall().hallId(), film.filmId(), start, end));
+                seats.merge(film.filmId(), (long) cursor.hall().capacity(), Long::sum);
+                cursors.add(new Cursor(cursor.hall(), align(open, end)));
+            }
+        }
+        return placements;
+    }
+
+    private static PackFilm best(List<PackFilm> films, Map<Long, Long> seats, Cursor cursor, LocalDateTime close) {
+        PackFilm best = null;
+        double bestPriority = -1;
+        for (PackFilm film : films) {
+            if (film.weight() <= 0 || cursor.at().plusMinutes(film.duration()).isAfter(close)) {
+                continue;
+            }
+            double priority = film.weight() / (seats.getOrDefault(film.filmId(), 0L) + cursor.hall().capacity());
+            if (priority > bestPriority) {
+                best = film;
+                bestPriority = priority;
+            }
+        }
+        return best;
+    }
+
+    // Ближайшее начало на сетке шагов от открытия, не раньше time
+    private LocalDateTime align(LocalDateTime open, LocalDateTime time) {
+        long seconds = Duration.between(open, time).toSeconds();
+        long steps = Math.max(0, Math.ceilDiv(seconds, stepMinutes * 60L));
+        return open.plusMinutes(steps * stepMinutes);
+    }
+
+    public interface Occupancy {
+        // null - зал свободен на [start, end), иначе время, до которого он занят
+        LocalDateTime busyUntil(Short hallId, LocalDateTime start, LocalDateTime end);
+    }
+
+    public record PackHall(Short hallId, int capacity) {
+    }
+
+    public record PackFilm(Long filmId, int duration, double weight, LocalDate releaseDate) {
+    }
+
+    // Сеанс раскладки; end - окончание вместе с уборкой
+    public record Placement(Short hallId, Long filmId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private record Cursor(PackHall hall, LocalDateTime at) {
+    }
+}
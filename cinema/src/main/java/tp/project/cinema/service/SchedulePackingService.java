@@ -0,0 +1,139 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tp.project.cinema.dto.ScheduleRequestDto;
+import tp.project.cinema.dto.ScheduleResultDto;
+import tp.project.cinema.dto.SchedulePackingRequestDto;
+import tp.project.cinema.dto.SchedulePackingResultDto;
+import tp.project.cinema.dto.SessionDto;
+import tp.project.cinema.exception.ResourceNotFoundException;
+import tp.project.cinema.model.Film;
+import tp.project.cinema.model.Hall;
+import tp.project.cinema.repository.FilmRepository;
+import tp.project.cinema.repository.HallRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Автоматическое расписание: SchedulePacker раскладывает фильмы по свободному времени залов
+// (существующие сеансы берутся из HallSchedule), результат либо возвращается как предложение,
+// либо сохраняется пакетом через SessionService.createSchedule с повторной проверкой конфликтов
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class SchedulePackingService {
+
+    private final HallRepository hallRepository;
+    private final FilmRepository filmRepository;
+    private final HallSchedule hallSchedule;
+    private final SessionService sessionService;
+
+    @Value("${session.schedule.max-pack-days:31}")
+    private int maxPackDays;
+
+    public SchedulePackingResultDto pack(SchedulePackingRequestDto request) {
+        long days = ChronoUnit.DAYS.between(request.getFrom(), request.getTo()) + 1;
+        if (days <= 0) {
+            throw new IllegalArgumentException("Конец периода раньше его начала");
+        }
+        if (days > maxPackDays) {
+            throw new IllegalArgumentException("Период раскладки не может быть больше " + maxPackDays + " дней");
+        }
+        if (request.getOpensAt().equals(request.getClosesAt())) {
+            throw new IllegalArgumentException("Время открытия и закрытия совпадают");
+        }
+
+        List<Hall> halls = request.getHallIds() == null || request.getHallIds().isEmpty()
+                ? hallRepository.findByStatus("AVAILABLE")
+                : hallRepository.findAllById(request.getHallIds());
+        Map<Short, Hall> hallsById = halls.stream().collect(Collectors.toMap(Hall::getHallId, Function.identity()));
+        if (request.getHallIds() != null) {
+            for (Short hallId : request.getHallIds()) {
+                if (!hallsById.containsKey(hallId)) {
+                    throw new ResourceNotFoundException("Зал с ID " + hallId + " не найден");
+                }
+            }
+        }
+        Map<Long, Film> films = filmRepository.findAllById(request.getFilms().stream()
+                        .map(SchedulePackingRequestDto.FilmDemand::getFilmId).toList())
+                .stream().collect(Collectors.toMap(Film::getFilmId, Function.identity()));
+
+        List<SchedulePacker.PackHall> packHalls = halls.stream()
+                .sorted(Comparator.comparing(Hall::getHallId))
+                .map(hall -> new SchedulePacker.PackHall(hall.getHallId(), hall.getRowsCount() * hall.getSeatsPerRow()))
+                .toList();
+        List<SchedulePacker.PackFilm> packFilms = new ArrayList<>();
+        for (SchedulePackingRequestDto.FilmDemand demand : request.getFilms()) {
+            Film film = films.get(demand.getFilmId());
+            if (film == null) {
+                throw new ResourceNotFoundException("Фильм с ID " + demand.getFilmId() + " не найден");
+            }
+            packFilms.add(new SchedulePacker.PackFilm(film.getFilmId(), film.getDuration(),
+                    demand.getWeight() != null ? demand.getWeight() : 1.0, film.getReleaseDate()));
+        }
+
+        SchedulePacker packer = new SchedulePacker(hallSchedule.getCleaningMinutes(), request.getStepMinutes());
+        List<SchedulePacker.Placement> placements = packer.pack(packHalls, packFilms,
+                request.getFrom(), request.getTo(), request.getOpensAt(), request.getClosesAt(), this::busyUntil);
+
+        SchedulePackingResultDto result = new SchedulePackingResultDto();
+        result.setDryRun(request.isDryRun());
+        Map<Short, Integer> capacities = packHalls.stream()
+                .collect(Collectors.toMap(SchedulePacker.PackHall::hallId, SchedulePacker.PackHall::capacity));
+        long shownMinutes = 0;
+        for (SchedulePacker.Placement placement : placements) {
+            result.getSeatsByFilm().merge(placement.filmId(), (long) capacities.get(placement.hallId()), Long::sum);
+            shownMinutes += films.get(placement.filmId()).getDuration();
+        }
+        long openMinutes = Duration.between(request.getOpensAt(), request.getClosesAt()).toMinutes();
+        if (openMinutes <= 0) {
+            openMinutes += 24 * 60;
+        }
+        long hallMinutes = openMinutes * days * packHalls.size();
+        result.setHallUtilization(hallMinutes > 0 ? (double) shownMinutes / hallMinutes : 0);
+
+        List<SessionDto> sessions = new ArrayList<>(placements.size());
+        for (SchedulePacker.Placement placement : placements) {
+            Film film = films.get(placement.filmId());
+            Hall hall = hallsById.get(placement.hallId());
+            SessionDto sessionDto = new SessionDto();
+            sessionDto.setFilmId(film.getFilmId());
+            sessionDto.setHallId(hall.getHallId());
+            sessionDto.setDateTime(placement.start());
+            sessionDto.setFilmTitle(film.getTitle());
+            sessionDto.setHallName(hall.getHallName());
+            sessionDto.setDuration((int) film.getDuration());
+            sessionDto.setBasePrice(hall.getBasePrice() != null ? hall.getBasePrice().doubleValue() : null);
+            sessionDto.setStatus(SessionLifecycle.SCHEDULED);
+            sessions.add(sessionDto);
+        }
+
+        if (request.isDryRun()) {
+            result.setSessions(sessions);
+            return result;
+        }
+        ScheduleRequestDto scheduleRequest = new ScheduleRequestDto();
+        scheduleRequest.setSessions(sessions);
+        ScheduleResultDto created = sessionService.createSchedule(scheduleRequest);
+        result.setSessions(created.getCreated());
+        result.setConflicts(created.getConflicts());
+        return result;
+    }
+
+    private LocalDateTime busyUntil(Short hallId, LocalDateTime start, LocalDateTime end) {
+        return hallSchedule.conflicts(hallId, start, end, null).stream()
+                .map(HallSchedule.Slot::end)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+    }
+}
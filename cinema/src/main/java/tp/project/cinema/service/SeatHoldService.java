@@ -0,0 +1,251 @@
+package tp.project.cinema.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tp.project.cinema.dto.SeatHoldDto;
+import tp.project.cinema.exception.ResourceNotFoundException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Временное удержание мест без блокировок: ячейка на каждое место сеанса, захват через CAS,
+// истечение - по колесу таймеров. Билеты создаются только для мест, закреплённых через claim.
+// Удерживать места можно до начала сеанса; таблицы завершённых сеансов сбрасывает SessionLifecycle
+@Service
+public class SeatHoldService {
+
+    private static final SeatHold FAILED = new SeatHold(null, -1, null, 0, true);
+
+    private final SeatInventory seatInventory;
+    private final SeatStream seatStream;
+    private final long holdTtlMillis;
+    private final Map<Integer, HoldTable> tables = new ConcurrentHashMap<>();
+    private final HoldTimerWheel<SeatHold> wheel;
+
+    public SeatHoldService(SeatInventory seatInventory, SeatStream seatStream,
+                           @Value("${booking.hold.ttl-seconds:600}") long holdTtlSeconds) {
+        this.seatInventory = seatInventory;
+        this.seatStream = seatStream;
+        this.holdTtlMillis = holdTtlSeconds * 1000;
+        this.wheel = new HoldTimerWheel<>(1024, 1000, SeatHold::getExpiresAt, hold -> {
+            if (hold.getTable().slots.compareAndSet(hold.getOrdinal(), hold, null)) {
+                seatStream.publish(hold.getTable().sessionId, hold.getOrdinal(), SeatStream.AVAILABLE);
+            }
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        wheel.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        wheel.stop();
+    }
+
+    // Удержать места для пользователя: либо все, либо ни одного
+    public SeatHoldDto hold(SeatHoldDto request, Long userId) {
+        SeatInventory.SessionSeats seats = seatInventory.getSession(request.getSessionId());
+        if (seats.getSessionDateTime().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Сеанс уже начался или завершился");
+        }
+        HoldTable table = tableFor(seats);
+        long now = System.currentTimeMillis();
+        long expiresAt = now + holdTtlMillis;
+
+        List<SeatHold> acquired = new ArrayList<>();
+        List<SeatHold> replaced = new ArrayList<>();
+        for (Integer seatId : request.getSeatIds()) {
+            int ordinal = ordinalOf(seats, seatId);
+            SeatHold next = new SeatHold(table, ordinal, userId, expiresAt, false);
+            SeatHold previous = seats.isOccupied(ordinal) ? FAILED : table.acquire(next, now);
+            if (previous == FAILED) {
+                for (int i = acquired.size() - 1; i >= 0; i--) {
+                    SeatHold hold = acquired.get(i);
+                    table.slots.compareAndSet(hold.getOrdinal(), hold, replaced.get(i));
+                }
+                throw new IllegalArgumentException("Место " + seatId + " уже занято или удерживается");
+            }
+            acquired.add(next);
+            replaced.add(previous);
+        }
+        acquired.forEach(hold -> {
+            wheel.schedule(hold);
+            seatStream.publish(seats.getSessionId(), hold.getOrdinal(), SeatStream.HELD);
+        });
+
+        request.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+        return request;
+    }
+
+    // Снять удержание мест пользователя
+    public void release(Integer sessionId, Long userId, Collection<Integer> seatIds) {
+        HoldTable table = tables.get(sessionId);
+        if (table == null) {
+            return;
+        }
+        for (Integer seatId : seatIds) {
+            int ordinal = table.layout.ordinalOf(seatId);
+            if (ordinal < 0) {
+                continue;
+            }
+            SeatHold current = table.slots.get(ordinal);
+            if (current != null && !current.isPinned() && current.getUserId().equals(userId)
+                    && table.slots.compareAndSet(ordinal, current, null)) {
+                seatStream.publish(sessionId, ordinal, SeatStream.AVAILABLE);
+            }
+        }
+    }
+
+    // Закрепить места под создаваемые билеты. Места должны быть свободны или удерживаться этим же пользователем.
+    // Закрепление снимается по завершении транзакции: после коммита место уже отмечено занятым в SeatInventory
+    public void claim(Integer sessionId, Long userId, Collection<Integer> seatIds) {
+        SeatInventory.SessionSeats seats = seatInventory.getSession(sessionId);
+        HoldTable table = tableFor(seats);
+        long now = System.currentTimeMillis();
+
+        List<SeatHold> pinned = new ArrayList<>();
+        for (Integer seatId : seatIds) {
+            int ordinal = ordinalOf(seats, seatId);
+            SeatHold pin = new SeatHold(table, ordinal, userId, Long.MAX_VALUE, true);
+            if (seats.isOccupied(ordinal) || table.acquire(pin, now) == FAILED) {
+                pinned.forEach(hold -> table.slots.compareAndSet(hold.getOrdinal(), hold, null));
+                throw new IllegalArgumentException("Место " + seatId + " уже занято или удерживается");
+            }
+            pinned.add(pin);
+        }
+        pinned.forEach(hold -> seatStream.publish(sessionId, hold.getOrdinal(), SeatStream.HELD));
+
+        // При откате место снова свободно; при коммите о занятости сообщит SeatInventory
+        Runnable unpin = () -> pinned.forEach(hold -> table.slots.compareAndSet(hold.getOrdinal(), hold, null));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unpin.run();
+                    if (status != STATUS_COMMITTED) {
+                        pinned.forEach(hold -> seatStream.publish(sessionId, hold.getOrdinal(), SeatStream.AVAILABLE));
+                    }
+                }
+            });
+        } else {
+            unpin.run();
+        }
+    }
+
+    // Сеансы завершились: их удержания больше не нужны. Истекающие удержания в колесе таймеров
+    // указывают на уже отброшенную таблицу и ничего не меняют
+    public void forget(Collection<Integer> sessionIds) {
+        tables.keySet().removeAll(sessionIds);
+    }
+
+    // Оставить таблицы только открытых сеансов (перезагрузка расписания SessionLifecycle)
+    public void retain(Set<Integer> openSessionIds) {
+        tables.keySet().retainAll(openSessionIds);
+    }
+
+    // Удерживается ли место кем-либо (для отображения схемы зала)
+    public boolean isHeld(SeatInventory.SessionSeats seats, int ordinal) {
+        HoldTable table = tables.get(seats.getSessionId());
+        if (table == null || table.layout != seats.getLayout()) {
+            return false;
+        }
+        SeatHold current = table.slots.get(ordinal);
+        return current != null && !current.isExpired(System.currentTimeMillis());
+    }
+
+    // Состояние каждого места сеанса в порядке схемы зала (коды SeatStream)
+    public byte[] seatStates(SeatInventory.SessionSeats seats) {
+        byte[] states = new byte[seats.getLayout().size()];
+        for (int ordinal = 0; ordinal < states.length; ordinal++) {
+            if (seats.isOccupied(ordinal)) {
+                states[ordinal] = SeatStream.BOOKED;
+            } else if (isHeld(seats, ordinal)) {
+                states[ordinal] = SeatStream.HELD;
+            }
+        }
+        return states;
+    }
+
+    // Количество свободных, но удерживаемых мест сеанса
+    public int countHeld(SeatInventory.SessionSeats seats) {
+        int count = 0;
+        for (int ordinal = 0; ordinal < seats.getLayout().size(); ordinal++) {
+            if (!seats.isOccupied(ordinal) && isHeld(seats, ordinal)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int ordinalOf(SeatInventory.SessionSeats seats, Integer seatId) {
+        int ordinal = seats.getLayout().ordinalOf(seatId);
+        if (ordinal < 0) {
+            throw new ResourceNotFoundException("Место с ID " + seatId + " не найдено в зале сеанса " + seats.getSessionId());
+        }
+        return ordinal;
+    }
+
+    // Таблица удержаний привязана к конкретной схеме зала: после изменения зала позиции мест другие
+    private HoldTable tableFor(SeatInventory.SessionSeats seats) {
+        return tables.compute(seats.getSessionId(), (id, table) ->
+                table != null && table.layout == seats.getLayout() ? table : new HoldTable(id, seats.getLayout()));
+    }
+
+    private static final class HoldTable {
+        private final Integer sessionId;
+        private final SeatInventory.HallLayout layout;
+        private final AtomicReferenceArray<SeatHold> slots;
+
+        HoldTable(Integer sessionId, SeatInventory.HallLayout layout) {
+            this.sessionId = sessionId;
+            this.layout = layout;
+            this.slots = new AtomicReferenceArray<>(layout.size());
+        }
+
+        // Возвращает прежнее удержание (или null), либо FAILED, если место занято другим пользователем
+        SeatHold acquire(SeatHold next, long now) {
+            int ordinal = next.getOrdinal();
+            while (true) {
+                SeatHold current = slots.get(ordinal);
+                boolean free = current == null || current.isExpired(now)
+                        || (!current.isPinned() && current.getUserId().equals(next.getUserId()));
+                if (!free) {
+                    return FAILED;
+                }
+                if (slots.compareAndSet(ordinal, current, next)) {
+                    return current != null && current.isExpired(now) ? null : current;
+                }
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class SeatHold {
+        private final HoldTable table;
+        private final int ordinal;
+        private final Long userId;
+        private final long expiresAt;
+        private final boolean pinned;
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package tp.project.cinema.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tp.project.cinema.dto.Mapping.SeatMapping;
+import tp.project.cinema.dto.SeatDto;
+import tp.project.cinema.exception.ResourceNotFoundException;
+import tp.project.cinema.model.Session;
+import tp.project.cinema.repository.SeatRepository;
+import tp.project.cinema.repository.SessionRepository;
+import tp.project.cinema.repository.TicketRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Занятость мест по сеансам в памяти: схема зала загружается один раз,
+// для каждого сеанса хранится битовая карта, индексированная позицией места в схеме зала.
+// Карты открытых сеансов живут, пока сеанс не завершится: SessionLifecycle сбрасывает их при завершении
+// и при перезагрузке расписания
+@Component
+@RequiredArgsConstructor
+public class SeatInventory {
+
+    private final SessionRepository sessionRepository;
+    private final SeatRepository seatRepository;
+    private final TicketRepository ticketRepository;
+    private final SeatMapping seatMapping;
+    private final SeatStream seatStream;
+
+    private final Map<Short, Entry<HallLayout>> hallLayouts = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry<SessionSeats>> sessions = new ConcurrentHashMap<>();
+
+    // Получить карту мест сеанса (при первом обращении загружается из БД).
+    // Запись попадает в карту до загрузки, а загрузка идёт под блокировкой самой записи, а не ConcurrentHashMap:
+    // изменения, закоммиченные во время загрузки, ждут её и применяются поверх прочитанного
+    public SessionSeats getSession(Integer sessionId) {
+        Entry<SessionSeats> entry = sessions.computeIfAbsent(sessionId, id -> new Entry<>());
+        try {
+            return entry.get(() -> loadSession(sessionId));
+        } catch (RuntimeException e) {
+            sessions.remove(sessionId, entry);
+            throw e;
+        }
+    }
+
+    public void markOccupied(Integer sessionId, Integer seatId) {
+        markOccupied(sessionId, List.of(seatId));
+    }
+
+    public void markOccupied(Integer sessionId, Collection<Integer> seatIds) {
+        AfterCommit.run(() -> {
+            SessionSeats updated = loaded(sessionId);
+            if (updated != null) {
+                seatIds.forEach(seatId -> updated.setOccupied(seatId, true));
+            }
+            publish(sessionId, updated, seatIds, SeatStream.BOOKED);
+        });
+    }
+
+    public void release(Integer sessionId, Collection<Integer> seatIds) {
+        AfterCommit.run(() -> {
+            SessionSeats updated = loaded(sessionId);
+            if (updated != null) {
+                seatIds.forEach(seatId -> updated.setOccupied(seatId, false));
+            }
+            publish(sessionId, updated, seatIds, SeatStream.AVAILABLE);
+        });
+    }
+
+    // Сбросить карту сеанса (будет перечитана при следующем обращении)
+    public void evictSession(Integer sessionId) {
+        AfterCommit.run(() -> {
+            sessions.remove(sessionId);
+            seatStream.reset(sessionId);
+        });
+    }
+
+    // Сбросить схему зала и карты всех его сеансов
+    public void evictHall(Short hallId) {
+        AfterCommit.run(() -> {
+            hallLayouts.remove(hallId);
+            evictWhere(seats -> seats.getLayout().getHallId().equals(hallId));
+        });
+    }
+
+    // Сбросить карты сеансов фильма: в них хранится название фильма
+    public void evictFilm(Long filmId) {
+        AfterCommit.run(() -> evictWhere(seats -> seats.getFilmId().equals(filmId)));
+    }
+
+    // Сеансы завершились: карты больше не нужны, зрителям сообщать нечего
+    public void forget(Collection<Integer> sessionIds) {
+        sessions.keySet().removeAll(sessionIds);
+    }
+
+    // Оставить карты только открытых сеансов (перезагрузка расписания SessionLifecycle)
+    public void retain(Set<Integer> openSessionIds) {
+        sessions.keySet().retainAll(openSessionIds);
+    }
+
+    // Загружаемые записи сбрасываются тоже: их сеанс ещё неизвестен, а прочитанное может быть устаревшим
+    private void evictWhere(Predicate<SessionSeats> stale) {
+        sessions.entrySet().removeIf(entry -> {
+            SessionSeats seats = entry.getValue().value;
+            boolean evicted = seats == null || stale.test(seats);
+            if (evicted) {
+                seatStream.reset(entry.getKey());
+            }
+            return evicted;
+        });
+    }
+
+    // Карта сеанса, если она загружена или загружается (тогда дожидаемся загрузки)
+    private SessionSeats loaded(Integer sessionId) {
+        Entry<SessionSeats> entry = sessions.get(sessionId);
+        return entry != null ? entry.await() : null;
+    }
+
+    // Карта сеанса не загружена: зрителей нет или им уже отправлен reset
+    private void publish(Integer sessionId, SessionSeats seats, Collection<Integer> seatIds, byte state) {
+        if (seats == null) {
+            return;
+        }
+        for (Integer seatId : seatIds) {
+            int ordinal = seats.getLayout().ordinalOf(seatId);
+            if (ordinal >= 0) {
+                seatStream.publish(sessionId, ordinal, state);
+            }
+        }
+    }
+
+    private SessionSeats loadSession(Integer sessionId) {
+        Session session = sessionRepository.findWithFilmAndHall(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Сеанс с ID " + sessionId + " не найден"));
+
+        Short hallId = session.getHall().getHallId();
+        HallLayout layout = hallLayouts.computeIfAbsent(hallId, id -> new Entry<>()).get(() -> loadLayout(hallId));
+        SessionSeats seats = new SessionSeats(session, layout);
+        for (Integer seatId : ticketRepository.findOccupiedSeatIds(sessionId)) {
+            seats.setOccupied(seatId, true);
+        }
+        return seats;
+    }
+
+    private HallLayout loadLayout(Short hallId) {
+        return new HallLayout(hallId, seatRepository.findLayoutByHall(hallId).stream()
+                .map(seatMapping::toLayoutDto)
+                .toList());
+    }
+
+    // Значение карты, загружаемое под собственной блокировкой
+    private static final class Entry<T> {
+        private volatile T value;
+
+        T get(Supplier<T> loader) {
+            T loaded = value;
+            if (loaded != null) {
+                return loaded;
+            }
+            synchronized (this) {
+                if (value == null) {
+                    value = loader.get();
+                }
+                return value;
+            }
+        }
+
+        synchronized T await() {
+            return value;
+        }
+    }
+
+    // Неизменяемая схема зала: места упорядочены по ряду и номеру, индекс в списке - позиция места
+    @Getter
+    public static final class HallLayout {
+        private final Short hallId;
+        private final List<SeatDto> seats;
+        private final Map<Integer, Integer> ordinals;
+
+        HallLayout(Short hallId, List<SeatDto> seats) {
+            this.hallId = hallId;
+            this.seats = seats;
+            this.ordinals = new HashMap<>(seats.size() * 2);
+            for (int i = 0; i < seats.size(); i++) {
+                ordinals.put(seats.get(i).getSeatId(), i);
+            }
+        }
+
+        public int size() {
+            return seats.size();
+        }
+
+        public int ordinalOf(Integer seatId) {
+            Integer ordinal = ordinals.get(seatId);
+            return ordinal != null ? ordinal : -1;
+        }
+
+        // Копия места для ответа, чтобы не менять общую схему
+        public SeatDto copySeat(int ordinal) {
+            SeatDto source = seats.get(ordinal);
+            SeatDto dto = new SeatDto();
+            dto.setSeatId(source.getSeatId());
+            dto.setRowNumber(source.getRowNumber());
+            dto.setSeatNumber(source.getSeatNumber());
+            dto.setSeatType(source.getSeatType());
+            dto.setPriceMultiplier(source.getPriceMultiplier());
+            dto.setHallId(source.getHallId());
+            dto.setBasePrice(source.getBasePrice());
+            dto.setHallName(source.getHallName());
+            dto.setPrice(source.getPrice());
+            return dto;
+        }
+    }
+
+    // Занятость мест одного сеанса: один бит на место
+    @Getter
+    public static final class SessionSeats {
+        private final Integer sessionId;
+        private final Long filmId;
+        private final String filmTitle;
+        private final LocalDateTime sessionDateTime;
+        private final String hallName;
+        private final HallLayout layout;
+        private final AtomicLongArray words;
+
+        SessionSeats(Session session, HallLayout layout) {
+            this.sessionId = session.getSessionId();
+            this.filmId = session.getFilm().getFilmId();
+            this.filmTitle = session.getFilm().getTitle();
+            this.sessionDateTime = session.getDateTime();
+            this.hallName = session.getHall().getHallName();
+            this.layout = layout;
+            this.words = new AtomicLongArray((layout.size() + 63) >>> 6);
+        }
+
+        public boolean isOccupied(int ordinal) {
+            return (words.get(ordinal >>> 6) & (1L << ordinal)) != 0;
+        }
+
+        public boolean isOccupiedSeat(Integer seatId) {
+            int ordinal = layout.ordinalOf(seatId);
+            return ordinal >= 0 && isOccupied(ordinal);
+        }
+
+        public int occupiedCount() {
+            int count = 0;
+            for (int i = 0; i < words.length(); i++) {
+                count += Long.bitCount(words.get(i));
+            }
+            return count;
+        }
+
+        public int availableCount() {
+            return layout.size() - occupiedCount();
+        }
+
+        void setOccupied(Integer seatId, boolean occupied) {
+            int ordinal = layout.ordinalOf(seatId);
+            if (ordinal < 0) {
+                return;
+            }
+            long mask = 1L << ordinal;
+            if (occupied) {
+                words.getAndUpdate(ordinal >>> 6, word -> word | mask);
+            } else {
+                words.getAndUpdate(ordinal >>> 6, word -> word & ~mask);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package tp.project.cinema.service;
+
+import tp.project.cinema.dto.SeatDto;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Компактная двоичная схема зала сеанса (application/vnd.cinema.seatmap).
+// Числа - беззнаковые varint (LEB128), строки - длина varint и UTF-8.
+//
+//   'S' 'M' версия(1)
+//   sessionId, hallId, hallName, filmTitle, sessionDateTime (ISO-8601)
+//   словарь типов мест: количество, затем для каждого - название, множитель (строка), цена в копейках
+//   ряды: количество, затем для каждого - номер ряда, количество мест и по каждому месту
+//         номер места, разность seatId с предыдущим местом (zigzag) и индекс типа в словаре
+//   состояния: по 2 бита на место в порядке схемы, младшие биты байта - первое место;
+//         0 - свободно, 1 - удерживается, 2 - занято (как в SeatStream)
+public final class SeatMapEncoder {
+
+    public static final String MEDIA_TYPE = "application/vnd.cinema.seatmap";
+    private static final int VERSION = 1;
+
+    private SeatMapEncoder() {
+    }
+
+    public static byte[] encode(SeatInventory.SessionSeats session, byte[] states) {
+        SeatInventory.HallLayout layout = session.getLayout();
+        Writer out = new Writer(64 + layout.size() * 4);
+        out.write('S');
+        out.write('M');
+        out.write(VERSION);
+        out.varint(session.getSessionId());
+        out.varint(layout.getHallId());
+        out.string(session.getHallName());
+        out.string(session.getFilmTitle());
+        out.string(session.getSessionDateTime() != null ? session.getSessionDateTime().toString() : "");
+
+        // Первое место каждого типа задаёт множитель и цену типа
+        Map<String, SeatDto> types = new LinkedHashMap<>();
+        for (SeatDto seat : layout.getSeats()) {
+            types.putIfAbsent(Objects.toString(seat.getSeatType(), ""), seat);
+        }
+        Map<String, Integer> typeIndexes = new HashMap<>();
+        out.varint(types.size());
+        for (Map.Entry<String, SeatDto> type : types.entrySet()) {
+            typeIndexes.put(type.getKey(), typeIndexes.size());
+            out.string(type.getKey());
+            BigDecimal multiplier = type.getValue().getPriceMultiplier();
+            out.string(multiplier != null ? multiplier.toPlainString() : "");
+            out.varint(kopecks(type.getValue().getPrice()));
+        }
+
+        // Места в схеме упорядочены по ряду и номеру - ряд записывается одной группой
+        List<SeatDto> seats = layout.getSeats();
+        List<Integer> rowStarts = new ArrayList<>();
+        for (int i = 0; i < seats.size(); i++) {
+            if (i == 0 || !seats.get(i).getRowNumber().equals(seats.get(i - 1).getRowNumber())) {
+                rowStarts.add(i);
+            }
+        }
+        rowStarts.add(seats.size());
+        out.varint(rowStarts.size() - 1);
+        int previousSeatId = 0;
+        for (int row = 0; row < rowStarts.size() - 1; row++) {
+            int start = rowStarts.get(row);
+            int end = rowStarts.get(row + 1);
+            out.varint(seats.get(start).getRowNumber());
+            out.varint(end - start);
+            for (int i = start; i < end; i++) {
+                SeatDto seat = seats.get(i);
+                out.varint(seat.getSeatNumber());
+                int delta = seat.getSeatId() - previousSeatId;
+                out.varint((delta << 1) ^ (delta >> 31));
+                out.varint(typeIndexes.get(Objects.toString(seat.getSeatType(), "")));
+                previousSeatId = seat.getSeatId();
+            }
+        }
+
+        byte[] packed = new byte[(states.length + 3) >>> 2];
+        for (int ordinal = 0; ordinal < states.length; ordinal++) {
+            packed[ordinal >>> 2] |= (byte) ((states[ordinal] & 0b11) << ((ordinal & 3) << 1));
+        }
+        out.write(packed, 0, packed.length);
+        return out.toByteArray();
+    }
+
+    private static int kopecks(BigDecimal price) {
+        return price != null ? price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValueExact() : 0;
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer(int size) {
+            super(size);
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void string(String value) {
+            byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            varint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
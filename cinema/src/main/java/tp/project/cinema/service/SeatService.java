@@ -14,8 +14,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +31,9 @@ public class SeatService {
     private final HallRepository hallRepository;
     private final SeatMapping seatMapping;
     private final SeatTypeRepository seatTypeRepository;
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final CatalogVersions catalogVersions;
 
     public void createSeat(SeatDto seatDto) {
         if(!seatRepository.existsById(seatDto.getSeatId())) {
@@ -48,9 +53,72 @@ public class SeatService {
             seat.setTicketList(new ArrayList<>());
 
             seatRepository.save(seat);
+            seatInventory.evictHall(hall.getHallId());
+            catalogVersions.changed(CatalogVersions.Aggregate.HALLS);
         }
     }
 
+    // Привести схему зала к переданному списку мест: места сравниваются по ключу (ряд, место),
+    // типы мест читаются одним запросом, вставки и удаления выполняются пакетами
+    public void syncHallSeats(Hall hall, List<SeatDto> seatDtos) {
+        Map<String, SeatType> seatTypes = seatTypeRepository.findAll().stream()
+                .collect(Collectors.toMap(SeatType::getTypeName, type -> type, (first, second) -> first));
+
+        Map<Integer, Seat> existing = new HashMap<>();
+        for (Seat seat : seatRepository.findByHallHallId(hall.getHallId())) {
+            existing.put(seatKey(seat.getRowNumber(), seat.getSeatNumber()), seat);
+        }
+
+        List<Seat> toInsert = new ArrayList<>();
+        Set<Integer> incomingKeys = new HashSet<>(seatDtos.size() * 2);
+        for (SeatDto seatDto : seatDtos) {
+            if (seatDto.getRowNumber() == null || seatDto.getSeatNumber() == null) {
+                throw new IllegalArgumentException("Для места должны быть указаны ряд и номер");
+            }
+            int key = seatKey(seatDto.getRowNumber(), seatDto.getSeatNumber());
+            if (!incomingKeys.add(key)) {
+                throw new IllegalArgumentException("Место " + seatDto.getSeatNumber() + " в ряду "
+                        + seatDto.getRowNumber() + " указано более одного раза");
+            }
+
+            SeatType seatType = seatTypes.computeIfAbsent(seatDto.getSeatType(), typeName -> {
+                SeatType newType = new SeatType();
+                newType.setTypeName(typeName);
+                newType.setPriceMultiplier(seatDto.getPriceMultiplier());
+                return seatTypeRepository.save(newType);
+            });
+
+            Seat seat = existing.get(key);
+            if (seat == null) {
+                seat = new Seat();
+                seat.setRowNumber(seatDto.getRowNumber());
+                seat.setSeatNumber(seatDto.getSeatNumber());
+                seat.setHall(hall);
+                seat.setSeatType(seatType);
+                toInsert.add(seat);
+            } else if (seat.getSeatType().getSeatTypeId() != seatType.getSeatTypeId()) {
+                // Изменился только тип - обновляем место на месте, билеты остаются привязаны
+                seat.setSeatType(seatType);
+            }
+        }
+
+        List<Integer> toDelete = existing.entrySet().stream()
+                .filter(entry -> !incomingKeys.contains(entry.getKey()))
+                .map(entry -> entry.getValue().getSeatId())
+                .collect(Collectors.toList());
+
+        if (!toDelete.isEmpty()) {
+            seatRepository.deleteAllByIdInBatch(toDelete);
+        }
+        seatRepository.saveAll(toInsert);
+        seatInventory.evictHall(hall.getHallId());
+        catalogVersions.changed(CatalogVersions.Aggregate.HALLS);
+    }
+
+    private static int seatKey(Short rowNumber, Short seatNumber) {
+        return (rowNumber << 16) | (seatNumber & 0xFFFF);
+    }
+
     // Получить все места зала
     public List<SeatDto> getSeatsByHall(Short hallId) {
         if (!hallRepository.existsById(hallId)) {
@@ -154,44 +222,74 @@ public class SeatService {
     }
 
     // Получить места для бронирования сеанса
+    // Схема и занятость берутся из SeatInventory, без запросов к БД после первой загрузки
+    @Transactional(readOnly = true)
     public Map<String, Object> getSeatsForBooking(Integer sessionId) {
-        if (!sessionRepository.existsById(sessionId)) {
-            throw new ResourceNotFoundException("Сеанс с ID " + sessionId + " не найден");
-        }
-
-        var session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Сеанс с ID " + sessionId + " не найден"));
+        SeatInventory.SessionSeats session = seatInventory.getSession(sessionId);
+        SeatInventory.HallLayout layout = session.getLayout();
 
-        Short hallId = session.getHall().getHallId();
-
-        List<SeatDto> allSeats = getSeatsByHall(hallId);
-        List<SeatDto> bookedSeats = getBookedSeatsForSession(sessionId);
-        List<SeatDto> availableSeats = getAvailableSeatsForSession(sessionId);
+        List<SeatDto> allSeats = new ArrayList<>(layout.size());
+        List<SeatDto> bookedSeats = new ArrayList<>();
+        List<SeatDto> heldSeats = new ArrayList<>();
+        List<SeatDto> availableSeats = new ArrayList<>();
 
         // Помечаем статус каждого места
-        allSeats.forEach(seat -> {
-            boolean isBooked = bookedSeats.stream()
-                    .anyMatch(booked -> booked.getSeatId().equals(seat.getSeatId()));
-            seat.setStatus(isBooked ? "BOOKED" : "AVAILABLE");
-        });
+        for (int ordinal = 0; ordinal < layout.size(); ordinal++) {
+            SeatDto seat = layout.copySeat(ordinal);
+            if (session.isOccupied(ordinal)) {
+                seat.setStatus("BOOKED");
+                bookedSeats.add(seat);
+            } else if (seatHoldService.isHeld(session, ordinal)) {
+                seat.setStatus("HELD");
+                heldSeats.add(seat);
+            } else {
+                seat.setStatus("AVAILABLE");
+                availableSeats.add(seat);
+            }
+            allSeats.add(seat);
+        }
 
         Map<String, Object> result = new HashMap<>();
         result.put("sessionId", sessionId);
-        result.put("filmId", session.getFilm().getFilmId());
-        result.put("filmTitle", session.getFilm().getTitle());
-        result.put("sessionDateTime", session.getDateTime());
-        result.put("hallId", hallId);
-        result.put("hallName", session.getHall().getHallName());
+        result.put("filmId", session.getFilmId());
+        result.put("filmTitle", session.getFilmTitle());
+        result.put("sessionDateTime", session.getSessionDateTime());
+        result.put("hallId", layout.getHallId());
+        result.put("hallName", session.getHallName());
         result.put("allSeats", allSeats);
         result.put("bookedSeats", bookedSeats);
+        result.put("heldSeats", heldSeats);
         result.put("availableSeats", availableSeats);
         result.put("totalSeats", allSeats.size());
         result.put("bookedCount", bookedSeats.size());
+        result.put("heldCount", heldSeats.size());
         result.put("availableCount", availableSeats.size());
 
         return result;
     }
 
+    // Та же схема сеанса в компактном двоичном виде (см. SeatMapEncoder)
+    @Transactional(readOnly = true)
+    public byte[] getCompactSeatMap(Integer sessionId) {
+        SeatInventory.SessionSeats session = seatInventory.getSession(sessionId);
+        return SeatMapEncoder.encode(session, seatHoldService.seatStates(session));
+    }
+
+    // Свободно ли место на сеанс
+    @Transactional(readOnly = true)
+    public boolean isSeatAvailable(Integer seatId, Integer sessionId) {
+        SeatInventory.SessionSeats session = seatInventory.getSession(sessionId);
+        int ordinal = session.getLayout().ordinalOf(seatId);
+        return ordinal >= 0 && !session.isOccupied(ordinal) && !seatHoldService.isHeld(session, ordinal);
+    }
+
+    // Количество свободных мест на сеанс
+    @Transactional(readOnly = true)
+    public int countAvailableSeats(Integer sessionId) {
+        SeatInventory.SessionSeats session = seatInventory.getSession(sessionId);
+        return session.availableCount() - seatHoldService.countHeld(session);
+    }
+
     // Получить лучшие места в зале (первые ряды)
     public List<SeatDto> getBestSeats(Short hallId) {
         List<SeatDto> allSeats = getSeatsByHall(hallId);
@@ -0,0 +1,283 @@
+package tp.project.cinema.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Поток изменений мест сеанса для схемы зала (Server-Sent Events).
+// Изменения копятся по сеансу (последнее состояние места побеждает) и раз в тик рассылаются одним
+// событием: оно сериализуется один раз и раскладывается по очередям зрителей сеанса.
+// В сокет пишет не поток рассылки, а отдельная задача зрителя в виртуальном потоке: медленный клиент
+// задерживает только себя, а при переполнении очереди его поток закрывается - клиент переподключится
+// и получит свежий снимок.
+// Состояние места - позиция в схеме зала (порядок allSeats) и код: 0 - свободно, 1 - удерживается, 2 - занято
+@Component
+public class SeatStream {
+
+    public static final byte AVAILABLE = 0;
+    public static final byte HELD = 1;
+    public static final byte BOOKED = 2;
+
+    private final long timeoutMillis;
+    private final long flushMillis;
+    private final long heartbeatMillis;
+    private final int viewerQueue;
+    private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+    private final Set<Channel> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final AtomicLong eventIds = new AtomicLong();
+
+    public SeatStream(@Value("${seats.stream.timeout-minutes:30}") long timeoutMinutes,
+                      @Value("${seats.stream.flush-ms:100}") long flushMillis,
+                      @Value("${seats.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+                      @Value("${seats.stream.viewer-queue:64}") int viewerQueue) {
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.flushMillis = flushMillis;
+        this.heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        this.viewerQueue = Math.max(1, viewerQueue);
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("seat-stream-send-", 0).factory());
+    }
+
+    @PostConstruct
+    void start() {
+        dispatcher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        channels.values().forEach(channel -> channel.viewers.forEach(viewer -> viewer.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    // Подписать зрителя: первым событием (snapshot) приходит состояние всех мест строкой цифр,
+    // дальше - изменения (seats) парами [позиция, состояние, ...]
+    public SseEmitter subscribe(Integer sessionId, Supplier<byte[]> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(sessionId, Channel::new);
+            Viewer viewer = new Viewer(channel, emitter);
+            channel.sendLock.lock();
+            try {
+                if (channel.closed) {
+                    continue;
+                }
+                // Снимок строится под блокировкой рассылки и встаёт в очередь первым: изменение,
+                // сделанное после снимка, ещё не разослано и придёт этому зрителю следующим событием
+                viewer.offer(SseEmitter.event()
+                        .id(String.valueOf(eventIds.incrementAndGet()))
+                        .name("snapshot")
+                        .data(states(snapshot.get()))
+                        .build());
+                channel.viewers.add(viewer);
+            } finally {
+                channel.sendLock.unlock();
+            }
+            emitter.onCompletion(viewer::close);
+            emitter.onTimeout(viewer::close);
+            emitter.onError(error -> viewer.close());
+            return emitter;
+        }
+    }
+
+    // Вызывается после изменения состояния; без зрителей сеанса ничего не делает
+    public void publish(Integer sessionId, int ordinal, byte state) {
+        Channel channel = channels.get(sessionId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel.pending) {
+            channel.pending.put(ordinal, state);
+        }
+        dirty.add(channel);
+    }
+
+    // Схема или занятость сеанса перечитываются целиком: зрители должны запросить схему заново
+    public void reset(Integer sessionId) {
+        Channel channel = channels.get(sessionId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel.pending) {
+            channel.pending.clear();
+            channel.reset = true;
+        }
+        dirty.add(channel);
+    }
+
+    private void flush() {
+        for (Channel channel : dirty) {
+            dirty.remove(channel);
+            channel.sendLock.lock();
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event = channel.drain(eventIds);
+                if (event != null) {
+                    channel.viewers.forEach(viewer -> viewer.offer(event));
+                }
+            } catch (RuntimeException ignored) {
+                // Поток рассылки не должен останавливаться из-за одного сеанса
+            } finally {
+                channel.sendLock.unlock();
+            }
+        }
+    }
+
+    // Комментарий раз в несколько секунд держит соединение открытым и выявляет ушедших зрителей;
+    // заодно закрываются каналы без зрителей
+    private void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Channel channel : channels.values()) {
+            channel.sendLock.lock();
+            try {
+                channel.viewers.forEach(viewer -> viewer.offer(ping));
+                if (channel.viewers.isEmpty()) {
+                    channel.closed = true;
+                    channels.remove(channel.sessionId, channel);
+                }
+            } catch (RuntimeException ignored) {
+            } finally {
+                channel.sendLock.unlock();
+            }
+        }
+    }
+
+    private static String states(byte[] states) {
+        StringBuilder data = new StringBuilder(states.length);
+        for (byte state : states) {
+            data.append((char) ('0' + state));
+        }
+        return data.toString();
+    }
+
+    // Зритель сеанса: события ждут отправки в ограниченной очереди, пишет их одна задача за раз
+    private final class Viewer {
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayDeque<>();
+        private boolean sending;
+        private boolean closed;
+
+        Viewer(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        // Не блокирует: событие встаёт в очередь, отправку при необходимости запускает задача зрителя
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            boolean overflow;
+            boolean startSending = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                overflow = queue.size() >= viewerQueue;
+                if (!overflow) {
+                    queue.add(event);
+                    startSending = !sending;
+                    sending = true;
+                }
+            }
+            if (overflow) {
+                // Клиент не успевает читать: закрываем поток, завершение ждёт сокет в задаче, а не здесь
+                close();
+                senders.execute(emitter::complete);
+            } else if (startSending) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                synchronized (this) {
+                    event = closed ? null : queue.poll();
+                    if (event == null) {
+                        sending = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            channel.viewers.remove(this);
+        }
+    }
+
+    private static final class Channel {
+        private final Integer sessionId;
+        private final List<Viewer> viewers = new CopyOnWriteArrayList<>();
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private final Map<Integer, Byte> pending = new LinkedHashMap<>();
+        private boolean reset;
+        private volatile boolean closed;
+
+        Channel(Integer sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        // Накопленные изменения одним событием или null, если рассылать нечего
+        Set<ResponseBodyEmitter.DataWithMediaType> drain(AtomicLong eventIds) {
+            StringBuilder data = new StringBuilder("[");
+            synchronized (pending) {
+                if (reset) {
+                    reset = false;
+                    pending.clear();
+                    return SseEmitter.event()
+                            .id(String.valueOf(eventIds.incrementAndGet()))
+                            .name("reset")
+                            .data(sessionId)
+                            .build();
+                }
+                if (pending.isEmpty()) {
+                    return null;
+                }
+                pending.forEach((ordinal, state) -> data.append(ordinal).append(',').append(state).append(','));
+                pending.clear();
+            }
+            data.setCharAt(data.length() - 1, ']');
+            return SseEmitter.event()
+                    .id(String.valueOf(eventIds.incrementAndGet()))
+                    .name("seats")
+                    .data(data.toString())
+                    .build();
+        }
+    }
+}
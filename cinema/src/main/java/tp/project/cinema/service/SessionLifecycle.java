@@ -0,0 +1,235 @@
+package tp.project.cinema.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tp.project.cinema.model.BookingStatus;
+import tp.project.cinema.repository.BookingRepository;
+import tp.project.cinema.repository.BookingStatusRepository;
+import tp.project.cinema.repository.SessionRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Жизненный цикл сеансов: Запланирован -> Активен (начало) -> Завершен (начало + длительность фильма).
+// Предстоящие переходы лежат в очереди по времени; раз в тик наступившие переходы применяются
+// пакетными UPDATE, вместе с завершением сеанса завершаются и его бронирования.
+// Чтение сеансов и броней ничего не вычисляет по текущему времени и не меняет сущности
+@Component
+@RequiredArgsConstructor
+public class SessionLifecycle {
+
+    public static final String SCHEDULED = "Запланирован";
+    public static final String ACTIVE = "Активен";
+    public static final String FINISHED = "Завершен";
+    public static final String CANCELLED = "Отменен";
+    // Статус отмены из старых данных, встречается наравне с CANCELLED
+    public static final String LEGACY_CANCELLED = "CANCELLED";
+
+    public static final String BOOKING_FINISHED = "Завершено";
+    public static final String BOOKING_CANCELLED = "Отмена";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final SessionRepository sessionRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingStatusRepository bookingStatusRepository;
+    private final CatalogVersions catalogVersions;
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${session.lifecycle.reload-minutes:60}")
+    private long reloadMinutes;
+
+    // Ожидаемое расписание сеанса; переход в очереди действителен, пока сеанс ссылается на то же расписание
+    private final Map<Integer, Schedule> schedules = new HashMap<>();
+    private final PriorityQueue<Transition> queue = new PriorityQueue<>(Comparator.comparing(Transition::at));
+    private long versions;
+    private LocalDateTime loadedAt;
+
+    @Scheduled(fixedDelayString = "${session.lifecycle.tick-ms:15000}")
+    public void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        if (loadedAt == null || loadedAt.plusMinutes(reloadMinutes).isBefore(now)) {
+            reload(now);
+        }
+
+        Map<Integer, Transition> due = poll(now);
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(due));
+        } catch (RuntimeException e) {
+            // Переходы вернутся в очередь и будут применены на следующем тике
+            synchronized (this) {
+                queue.addAll(due.values());
+            }
+            throw e;
+        }
+        List<Integer> finished = due.values().stream()
+                .filter(transition -> FINISHED.equals(transition.status()))
+                .map(Transition::sessionId)
+                .toList();
+        synchronized (this) {
+            finished.forEach(sessionId -> schedules.remove(sessionId, due.get(sessionId).schedule()));
+        }
+        // Карты мест и удержания завершённых сеансов больше не нужны
+        seatInventory.forget(finished);
+        seatHoldService.forget(finished);
+        catalogVersions.changed(CatalogVersions.Aggregate.SESSIONS);
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
+    }
+
+    // Сеанс создан или изменён: после коммита его переходы пересчитываются
+    public void scheduled(Integer sessionId, LocalDateTime dateTime, int durationMinutes, String status) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Schedule schedule = schedule(dateTime, durationMinutes, status, ++versions);
+                if (schedule == null) {
+                    schedules.remove(sessionId);
+                } else {
+                    enqueue(sessionId, schedule);
+                }
+            }
+        });
+    }
+
+    // Сеанс удалён или отменён: его переходы больше не применяются
+    public void forget(Integer sessionId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                schedules.remove(sessionId);
+            }
+        });
+    }
+
+    // Бронирования отменённого сеанса отменяются вместе с ним (в текущей транзакции)
+    public void cancelBookings(Integer sessionId) {
+        bookingRepository.updateOpenStatusBySessions(List.of(sessionId), bookingStatus(BOOKING_CANCELLED));
+        forget(sessionId);
+    }
+
+    // Полная перезагрузка расписания: подхватывает изменения длительности фильмов и правки в обход сервиса.
+    // Заодно бронирования уже завершённых и отменённых сеансов приводятся к статусу сеанса
+    private void reload(LocalDateTime now) {
+        long loadedVersion;
+        Set<Integer> open;
+        synchronized (this) {
+            loadedVersion = versions;
+        }
+        List<Object[]> rows = sessionRepository.findLifecycleSchedule();
+        transactionTemplate.executeWithoutResult(status -> {
+            bookingRepository.updateOpenStatusBySessionStatus(List.of(FINISHED), bookingStatus(BOOKING_FINISHED));
+            bookingRepository.updateOpenStatusBySessionStatus(List.of(CANCELLED, LEGACY_CANCELLED),
+                    bookingStatus(BOOKING_CANCELLED));
+        });
+
+        synchronized (this) {
+            Map<Integer, Schedule> loaded = new HashMap<>();
+            for (Object[] row : rows) {
+                Schedule schedule = schedule((LocalDateTime) row[1], ((Number) row[2]).intValue(), (String) row[3], 0);
+                if (schedule != null) {
+                    loaded.put((Integer) row[0], schedule);
+                }
+            }
+            // Сеансы, изменённые уже после запроса, важнее прочитанных строк
+            schedules.forEach((sessionId, schedule) -> {
+                if (schedule.version() > loadedVersion) {
+                    loaded.put(sessionId, schedule);
+                }
+            });
+            schedules.clear();
+            queue.clear();
+            loaded.forEach(this::enqueue);
+            loadedAt = now;
+            open = Set.copyOf(schedules.keySet());
+        }
+        // Заодно сбрасываются карты мест и удержания сеансов, которые закрылись в обход тика
+        // (отменены, удалены) или были прочитаны уже после завершения
+        seatInventory.retain(open);
+        seatHoldService.retain(open);
+    }
+
+    public static boolean isCancelled(String status) {
+        return CANCELLED.equals(status) || LEGACY_CANCELLED.equals(status);
+    }
+
+    // Места отменённой брони уже освобождены и могли быть проданы заново
+    public static boolean isBookingCancelled(String statusName) {
+        return BOOKING_CANCELLED.equals(statusName) || LEGACY_CANCELLED.equals(statusName);
+    }
+
+    // null - у завершённого или отменённого сеанса переходов нет
+    private static Schedule schedule(LocalDateTime dateTime, int durationMinutes, String status, long version) {
+        if (dateTime == null || FINISHED.equals(status) || isCancelled(status)) {
+            return null;
+        }
+        return new Schedule(dateTime, dateTime.plusMinutes(durationMinutes), ACTIVE.equals(status), version);
+    }
+
+    private void enqueue(Integer sessionId, Schedule schedule) {
+        schedules.put(sessionId, schedule);
+        if (!schedule.started()) {
+            queue.add(new Transition(schedule.start(), sessionId, ACTIVE, schedule));
+        }
+        queue.add(new Transition(schedule.end(), sessionId, FINISHED, schedule));
+    }
+
+    // Наступившие переходы; если сеанс успел и начаться, и закончиться, остаётся только завершение
+    private synchronized Map<Integer, Transition> poll(LocalDateTime now) {
+        Map<Integer, Transition> due = new LinkedHashMap<>();
+        while (!queue.isEmpty() && !queue.peek().at().isAfter(now)) {
+            Transition transition = queue.poll();
+            if (schedules.get(transition.sessionId()) == transition.schedule()) {
+                due.put(transition.sessionId(), transition);
+            }
+        }
+        return due;
+    }
+
+    private void apply(Map<Integer, Transition> due) {
+        Map<String, List<Integer>> byStatus = new HashMap<>();
+        due.forEach((sessionId, transition) ->
+                byStatus.computeIfAbsent(transition.status(), key -> new ArrayList<>()).add(sessionId));
+
+        for (List<Integer> ids : batches(byStatus.getOrDefault(ACTIVE, List.of()))) {
+            sessionRepository.updateOpenStatus(ids, ACTIVE);
+        }
+        List<Integer> finished = byStatus.getOrDefault(FINISHED, List.of());
+        if (!finished.isEmpty()) {
+            BookingStatus bookingFinished = bookingStatus(BOOKING_FINISHED);
+            for (List<Integer> ids : batches(finished)) {
+                sessionRepository.updateOpenStatus(ids, FINISHED);
+                bookingRepository.updateOpenStatusBySessions(ids, bookingFinished);
+            }
+        }
+    }
+
+    private BookingStatus bookingStatus(String statusName) {
+        return bookingStatusRepository.findByStatusName(statusName)
+                .orElseGet(() -> {
+                    BookingStatus newStatus = new BookingStatus();
+                    newStatus.setStatusName(statusName);
+                    return bookingStatusRepository.save(newStatus);
+                });
+    }
+
+    private static List<List<Integer>> batches(List<Integer> ids) {
+        List<List<Integer>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            batches.add(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
+
+    // started - сеанс уже Активен, ждём только завершения; version - порядок изменений для перезагрузки
+    private record Schedule(LocalDateTime start, LocalDateTime end, boolean started, long version) {
+    }
+
+    private record Transition(LocalDateTime at, Integer sessionId, String status, Schedule schedule) {
+    }
+}
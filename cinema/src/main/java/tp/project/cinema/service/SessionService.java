@@ -1,8 +1,13 @@
 package tp.project.cinema.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tp.project.cinema.dto.ScheduleConflictDto;
+import tp.project.cinema.dto.ScheduleRequestDto;
+import tp.project.cinema.dto.ScheduleResultDto;
 import tp.project.cinema.dto.SessionDto;
 import tp.project.cinema.dto.SeatDto;
 import tp.project.cinema.dto.Mapping.SessionMapping;
@@ -18,9 +23,15 @@ import tp.project.cinema.repository.TicketRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,11 +45,21 @@ public class SessionService {
     private final SeatRepository seatRepository;
     private final TicketRepository ticketRepository;
     private final SessionMapping sessionMapping;
-
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final SeatStream seatStream;
+    private final FilmsOnScreen filmsOnScreen;
+    private final CatalogVersions catalogVersions;
+    private final SessionLifecycle sessionLifecycle;
+    private final HallSchedule hallSchedule;
+
+    @Value("${session.schedule.max-batch:5000}")
+    private int maxScheduleSize;
+
+    // Списки сеансов читаются проекциями без бронирований; полный DTO отдаёт getSessionById
+    @Transactional(readOnly = true)
     public List<SessionDto> getAllSessions() {
-        return sessionRepository.findAll().stream()
-                .map(sessionMapping::toDto)
-                .collect(Collectors.toList());
+        return sessionRepository.findAllListItems();
     }
 
     public SessionDto getSessionById(Integer id) {
@@ -47,55 +68,53 @@ public class SessionService {
         return sessionMapping.toDto(session);
     }
 
+    @Transactional(readOnly = true)
     public List<SessionDto> getSessionsByFilm(Long filmId) {
         if (!filmRepository.existsById(filmId)) {
             throw new ResourceNotFoundException("Фильм с ID " + filmId + " не найден");
         }
 
-        return sessionRepository.findByFilmFilmId(filmId).stream()
-                .map(sessionMapping::toDto)
-                .collect(Collectors.toList());
+        return sessionRepository.findListItemsByFilm(filmId);
     }
 
+    @Transactional(readOnly = true)
     public List<SessionDto> getSessionsByHall(Short hallId) {
         if (!hallRepository.existsById(hallId)) {
             throw new ResourceNotFoundException("Зал с ID " + hallId + " не найден");
         }
 
-        return sessionRepository.findByHallHallId(hallId).stream()
-                .map(sessionMapping::toDto)
-                .collect(Collectors.toList());
+        return sessionRepository.findListItemsByHall(hallId);
     }
 
+    @Transactional(readOnly = true)
     public List<SessionDto> getSessionsByDate(LocalDateTime date) {
         LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
 
-        return sessionRepository.findByDateTimeBetween(startOfDay, endOfDay).stream()
-                .map(sessionMapping::toDto)
-                .collect(Collectors.toList());
+        return sessionRepository.findListItemsBetween(startOfDay, endOfDay);
     }
 
+    // Свободные места берутся из SeatInventory, удерживаемые другими покупателями не показываются
+    @Transactional(readOnly = true)
     public List<SeatDto> getAvailableSeats(Integer sessionId) {
-        Session session = sessionRepository.findById(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Сеанс с ID " + sessionId + " не найден"));
-
-        Short hallId = session.getHall().getHallId();
+        SeatInventory.SessionSeats seats = seatInventory.getSession(sessionId);
+        SeatInventory.HallLayout layout = seats.getLayout();
+
+        List<SeatDto> availableSeats = new ArrayList<>(seats.availableCount());
+        for (int ordinal = 0; ordinal < layout.size(); ordinal++) {
+            if (!seats.isOccupied(ordinal) && !seatHoldService.isHeld(seats, ordinal)) {
+                availableSeats.add(layout.copySeat(ordinal));
+            }
+        }
+        return availableSeats;
+    }
 
-        return seatRepository.findAvailableSeatsForSession(hallId, sessionId).stream()
-                .map(seat -> {
-                    SeatDto dto = new SeatDto();
-                    dto.setSeatId(seat.getSeatId());
-                    dto.setRowNumber(seat.getRowNumber());
-                    dto.setSeatNumber(seat.getSeatNumber());
-                    dto.setSeatType(seat.getSeatType().getTypeName());
-                    dto.setPriceMultiplier(seat.getSeatType().getPriceMultiplier());
-                    dto.setHallId(seat.getHall().getHallId());
-                    dto.setBasePrice(seat.getHall().getBasePrice());
-                    dto.setHallName(seat.getHall().getHallName());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    // Подписка на изменения мест сеанса; снимок - состояние каждого места в порядке схемы зала
+    @Transactional(readOnly = true)
+    public SseEmitter streamSeats(Integer sessionId) {
+        seatInventory.getSession(sessionId);
+        return seatStream.subscribe(sessionId,
+                () -> seatHoldService.seatStates(seatInventory.getSession(sessionId)));
     }
 
     public SessionDto createSession(SessionDto sessionDto) {
@@ -103,9 +122,8 @@ public class SessionService {
         Film film = filmRepository.findById(sessionDto.getFilmId())
                 .orElseThrow(() -> new ResourceNotFoundException("Фильм с ID " + sessionDto.getFilmId() + " не найден"));
 
-        // Проверяем существование зала
-        Hall hall = hallRepository.findById(sessionDto.getHallId())
-                .orElseThrow(() -> new ResourceNotFoundException("Зал с ID " + sessionDto.getHallId() + " не найден"));
+        // Проверяем существование зала; до коммита зал заблокирован для других записей расписания
+        Hall hall = lockHall(sessionDto.getHallId());
 
         // Проверяем, что hallId не null
         if (sessionDto.getHallId() == null || sessionDto.getHallId() == 0) {
@@ -117,33 +135,25 @@ public class SessionService {
             throw new IllegalArgumentException("ID фильма обязателен");
         }
 
-        Session previousSession = sessionRepository.findPreviousSession(
-                sessionDto.getHallId(),
-                sessionDto.getDateTime()
-        ).orElse(null);
-
-        if (previousSession != null && previousSession.getDateTime().plusMinutes(
-                previousSession.getFilm().getDuration() + 20).isAfter(sessionDto.getDateTime()))
-            throw new IllegalArgumentException("Данный сеанс перекрывает предыдущий сеанс");
-
-
-        // Проверяем конфликт времени
-        List<Session> conflictingSessions = sessionRepository.findConflictingSessions(
-                sessionDto.getHallId(),
-                sessionDto.getDateTime(),
-                sessionDto.getDateTime().plusMinutes(film.getDuration() + 20)
-        );
-
-        if (!conflictingSessions.isEmpty()) {
-            throw new IllegalArgumentException("Данный сеанс перекрывает следующий сеанс");
+        if (sessionDto.getDateTime() == null) {
+            throw new IllegalArgumentException("Дата и время сеанса обязательны");
         }
 
+        // Проверяем конфликт времени с соседними сеансами зала (с учётом уборки)
+        checkHallConflicts(hall.getHallId(), sessionDto.getDateTime(), film.getDuration(), null);
+
         Session session = sessionMapping.toEntity(sessionDto);
         session.setFilm(film);
         session.setHall(hall);
-        session.setStatus("Запланирован");
+        session.setStatus(SessionLifecycle.SCHEDULED);
 
         Session savedSession = sessionRepository.save(session);
+        filmsOnScreen.sessionScheduled(film.getFilmId(), savedSession.getDateTime());
+        sessionLifecycle.scheduled(savedSession.getSessionId(), savedSession.getDateTime(),
+                film.getDuration(), savedSession.getStatus());
+        hallSchedule.scheduled(hall.getHallId(), savedSession.getSessionId(), savedSession.getDateTime(),
+                film.getDuration(), savedSession.getStatus());
+        catalogVersions.changed(CatalogVersions.Aggregate.SESSIONS);
         return sessionMapping.toDto(savedSession);
     }
 
@@ -154,9 +164,9 @@ public class SessionService {
         Film film = filmRepository.findById(sessionDto.getFilmId())
                 .orElseThrow(() -> new ResourceNotFoundException("Фильм с ID " + sessionDto.getFilmId() + " не найден"));
 
-        Hall hall = hallRepository.findById(sessionDto.getHallId())
-                .orElseThrow(() -> new ResourceNotFoundException("Зал с ID " + sessionDto.getHallId() + " не найден"));
+        Hall hall = lockHall(sessionDto.getHallId());
 
+        Long previousFilmId = existingSession.getFilm().getFilmId();
         existingSession.setDateTime(sessionDto.getDateTime());
 
         // Обновляем статус, если указан
@@ -164,50 +174,309 @@ public class SessionService {
             existingSession.setStatus(sessionDto.getStatus());
         }
 
+        // Перенос не должен перекрыть другие сеансы зала; сам переносимый сеанс не учитывается
+        if (existingSession.getDateTime() != null && !SessionLifecycle.isCancelled(existingSession.getStatus())) {
+            checkHallConflicts(hall.getHallId(), existingSession.getDateTime(), film.getDuration(), id);
+        }
+
         existingSession.setFilm(film);
         existingSession.setHall(hall);
 
         Session updatedSession = sessionRepository.save(existingSession);
+        seatInventory.evictSession(id);
+        // Перенос или смена статуса могут как продлить, так и закончить прокат
+        filmsOnScreen.refresh(film.getFilmId());
+        if (!film.getFilmId().equals(previousFilmId)) {
+            filmsOnScreen.refresh(previousFilmId);
+        }
+        sessionLifecycle.scheduled(id, updatedSession.getDateTime(), film.getDuration(), updatedSession.getStatus());
+        hallSchedule.scheduled(hall.getHallId(), id, updatedSession.getDateTime(), film.getDuration(),
+                updatedSession.getStatus());
+        catalogVersions.changed(CatalogVersions.Aggregate.SESSIONS);
         return sessionMapping.toDto(updatedSession);
     }
 
     public void deleteSession(Integer id) {
-        if (!sessionRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Сеанс с ID " + id + " не найден");
-        }
-        sessionRepository.deleteById(id);
+        Session session = sessionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Сеанс с ID " + id + " не найден"));
+        sessionRepository.delete(session);
+        seatInventory.evictSession(id);
+        sessionLifecycle.forget(id);
+        hallSchedule.released(session.getHall().getHallId(), id);
+        filmsOnScreen.refresh(session.getFilm().getFilmId());
+        catalogVersions.changed(CatalogVersions.Aggregate.SESSIONS);
     }
 
     public SessionDto cancelSession(Integer id) {
         Session session = sessionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Сеанс с ID " + id + " не найден"));
 
-        session.setStatus("Отменен");
+        session.setStatus(SessionLifecycle.CANCELLED);
         Session cancelledSession = sessionRepository.save(session);
+        // Брони отменяются вместе с сеансом, их места больше не заняты
+        sessionLifecycle.cancelBookings(id);
+        seatInventory.evictSession(id);
+        hallSchedule.released(session.getHall().getHallId(), id);
+        filmsOnScreen.refresh(session.getFilm().getFilmId());
+        catalogVersions.changed(CatalogVersions.Aggregate.SESSIONS);
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
         return sessionMapping.toDto(cancelledSession);
     }
 
+    // Проверка пакета сеансов без сохранения: каждый сеанс сверяется с занятостью залов и с предыдущими
+    // сеансами пакета, возвращаются все найденные ошибки (пустой список - пакет можно создавать)
+    @Transactional(readOnly = true)
+    public List<ScheduleConflictDto> validateSchedule(ScheduleRequestDto request) {
+        List<SessionDto> sessions = expandSchedule(request);
+        return planSchedule(sessions, films(sessions), halls(sessions), new ArrayList<>());
+    }
+
+    // Создание пакета сеансов одной транзакцией: фильмы и залы читаются одним запросом на пакет,
+    // конфликты проверяются по HallSchedule под блокировкой залов, принятые сеансы сохраняются пакетной вставкой.
+    // Отклонённые сеансы возвращаются вместе с причинами, остальные создаются
+    public ScheduleResultDto createSchedule(ScheduleRequestDto request) {
+        List<SessionDto> sessions = expandSchedule(request);
+        Map<Long, Film> films = films(sessions);
+        Map<Short, Hall> halls = lockHalls(sessions);
+        syncHalls(sessions, films, halls.keySet());
+        List<SessionDto> accepted = new ArrayList<>();
+
+        ScheduleResultDto result = new ScheduleResultDto();
+        result.setConflicts(planSchedule(sessions, films, halls, accepted));
+        if (accepted.isEmpty()) {
+            return result;
+        }
+
+        List<Session> newSessions = new ArrayList<>(accepted.size());
+        for (SessionDto sessionDto : accepted) {
+            Session session = new Session();
+            session.setDateTime(sessionDto.getDateTime());
+            session.setFilm(films.get(sessionDto.getFilmId()));
+            session.setHall(halls.get(sessionDto.getHallId()));
+            session.setStatus(SessionLifecycle.SCHEDULED);
+            newSessions.add(session);
+        }
+
+        for (Session session : sessionRepository.saveAll(newSessions)) {
+            Film film = session.getFilm();
+            filmsOnScreen.sessionScheduled(film.getFilmId(), session.getDateTime());
+            sessionLifecycle.scheduled(session.getSessionId(), session.getDateTime(),
+                    film.getDuration(), session.getStatus());
+            hallSchedule.scheduled(session.getHall().getHallId(), session.getSessionId(), session.getDateTime(),
+                    film.getDuration(), session.getStatus());
+            result.getCreated().add(sessionMapping.toDto(session));
+        }
+        catalogVersions.changed(CatalogVersions.Aggregate.SESSIONS);
+        return result;
+    }
+
+    // Сеансы пакета в порядке нумерации: явные, затем правила повторения по дням и времени
+    private List<SessionDto> expandSchedule(ScheduleRequestDto request) {
+        List<SessionDto> sessions = new ArrayList<>(request.getSessions());
+        for (ScheduleRequestDto.Recurrence recurrence : request.getRecurrences()) {
+            if (recurrence.getTo().isBefore(recurrence.getFrom())) {
+                throw new IllegalArgumentException("Конец периода раньше его начала");
+            }
+            List<LocalTime> times = recurrence.getTimes().stream().sorted().toList();
+            for (LocalDate day = recurrence.getFrom(); !day.isAfter(recurrence.getTo()); day = day.plusDays(1)) {
+                if (recurrence.getDaysOfWeek() != null && !recurrence.getDaysOfWeek().isEmpty()
+                        && !recurrence.getDaysOfWeek().contains(day.getDayOfWeek())) {
+                    continue;
+                }
+                for (LocalTime time : times) {
+                    SessionDto sessionDto = new SessionDto();
+                    sessionDto.setFilmId(recurrence.getFilmId());
+                    sessionDto.setHallId(recurrence.getHallId());
+                    sessionDto.setDateTime(day.atTime(time));
+                    sessions.add(sessionDto);
+                }
+                if (sessions.size() > maxScheduleSize) {
+                    throw new IllegalArgumentException("В пакете больше " + maxScheduleSize + " сеансов");
+                }
+            }
+        }
+        if (sessions.size() > maxScheduleSize) {
+            throw new IllegalArgumentException("В пакете больше " + maxScheduleSize + " сеансов");
+        }
+        return sessions;
+    }
+
+    private Map<Long, Film> films(List<SessionDto> sessions) {
+        return filmRepository.findAllById(sessions.stream()
+                        .map(SessionDto::getFilmId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Film::getFilmId, film -> film));
+    }
+
+    private Map<Short, Hall> halls(List<SessionDto> sessions) {
+        return hallRepository.findAllById(sessions.stream()
+                        .map(SessionDto::getHallId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Hall::getHallId, hall -> hall));
+    }
+
+    // Залы пакета блокируются до коммита: другой пакет или сеанс в тех же залах ждёт, пока этот не сохранится
+    private Map<Short, Hall> lockHalls(List<SessionDto> sessions) {
+        return hallRepository.lockAllById(sessions.stream()
+                        .map(SessionDto::getHallId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Hall::getHallId, hall -> hall));
+    }
+
+    private Hall lockHall(Short hallId) {
+        if (hallId == null) {
+            throw new IllegalArgumentException("ID зала обязателен");
+        }
+        return hallRepository.lockAllById(List.of(hallId)).stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Зал с ID " + hallId + " не найден"));
+    }
+
+    // Занятость каждого зала пакета сверяется с БД на отрезке от первого до последнего сеанса зала в пакете
+    private void syncHalls(List<SessionDto> sessions, Map<Long, Film> films, Set<Short> hallIds) {
+        Map<Short, HallSchedule.Slot> ranges = new HashMap<>();
+        for (SessionDto sessionDto : sessions) {
+            Film film = films.get(sessionDto.getFilmId());
+            if (film == null || sessionDto.getDateTime() == null || !hallIds.contains(sessionDto.getHallId())) {
+                continue;
+            }
+            ranges.merge(sessionDto.getHallId(), hallSchedule.slot(null, sessionDto.getDateTime(), film.getDuration()),
+                    (range, slot) -> new HallSchedule.Slot(null,
+                            slot.start().isBefore(range.start()) ? slot.start() : range.start(),
+                            slot.end().isAfter(range.end()) ? slot.end() : range.end()));
+        }
+        ranges.forEach((hallId, range) -> hallSchedule.sync(hallId, range.start(), range.end(), null));
+    }
+
+    // Ошибки пакета; принятые сеансы добавляются в accepted
+    private List<ScheduleConflictDto> planSchedule(List<SessionDto> sessions, Map<Long, Film> films,
+                                                   Map<Short, Hall> halls, List<SessionDto> accepted) {
+        HallSchedule.Plan plan = hallSchedule.plan();
+        List<ScheduleConflictDto> conflicts = new ArrayList<>();
+        for (int index = 0; index < sessions.size(); index++) {
+            ScheduleConflictDto conflict = planSession(plan, index, sessions.get(index), films, halls.keySet());
+            if (conflict != null) {
+                conflicts.add(conflict);
+            } else {
+                accepted.add(sessions.get(index));
+            }
+        }
+        return conflicts;
+    }
+
+    // Сеанс пакета принимается в план или возвращается ошибка; отклонённые сеансы план не занимают
+    private ScheduleConflictDto planSession(HallSchedule.Plan plan, int index, SessionDto sessionDto,
+                                            Map<Long, Film> films, Set<Short> hallIds) {
+        ScheduleConflictDto conflict = new ScheduleConflictDto();
+        conflict.setIndex(index);
+        conflict.setFilmId(sessionDto.getFilmId());
+        conflict.setHallId(sessionDto.getHallId());
+        conflict.setDateTime(sessionDto.getDateTime());
+
+        Film film = films.get(sessionDto.getFilmId());
+        if (film == null) {
+            conflict.setMessage("Фильм с ID " + sessionDto.getFilmId() + " не найден");
+            return conflict;
+        }
+        if (!hallIds.contains(sessionDto.getHallId())) {
+            conflict.setMessage("Зал с ID " + sessionDto.getHallId() + " не найден");
+            return conflict;
+        }
+        if (sessionDto.getDateTime() == null) {
+            conflict.setMessage("Дата и время сеанса обязательны");
+            return conflict;
+        }
+
+        HallSchedule.Slot slot = hallSchedule.slot(null, sessionDto.getDateTime(), film.getDuration());
+        HallSchedule.Conflicts found = plan.check(sessionDto.getHallId(), slot.start(), slot.end());
+        if (found.isEmpty()) {
+            plan.accept(sessionDto.getHallId(), index, slot.start(), slot.end());
+            return null;
+        }
+        found.sessions().forEach(session -> conflict.getConflictingSessionIds().add(session.sessionId()));
+        conflict.getConflictingIndexes().addAll(found.planned());
+        conflict.setMessage("Сеанс перекрывает другие сеансы зала");
+        return conflict;
+    }
+
+    private void checkHallConflicts(Short hallId, LocalDateTime dateTime, int duration, Integer exceptSessionId) {
+        HallSchedule.Slot slot = hallSchedule.slot(exceptSessionId, dateTime, duration);
+        // Зал заблокирован вызывающим методом: индекс дочитывается из БД, чужие коммиты в него могли ещё не попасть
+        hallSchedule.sync(hallId, slot.start(), slot.end(), exceptSessionId);
+        List<HallSchedule.Slot> conflicts = hallSchedule.conflicts(hallId, slot.start(), slot.end(), exceptSessionId);
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        if (conflicts.get(0).start().isBefore(dateTime)) {
+            throw new IllegalArgumentException("Данный сеанс перекрывает предыдущий сеанс");
+        }
+        throw new IllegalArgumentException("Данный сеанс перекрывает следующий сеанс");
+    }
+
     // ДОБАВЛЕННЫЕ МЕТОДЫ ДЛЯ ФРОНТЕНДА:
 
+    // Сеансы в интервале [start, end) - диапазонный запрос по индексу на date_time
+    @Transactional(readOnly = true)
+    public List<SessionDto> getSessionsBetween(LocalDateTime start, LocalDateTime end) {
+        return sessionRepository.findListItemsBetween(start, end);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SessionDto> searchSessions(Long filmId, Short hallId, LocalDate date,
+                                           LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime from = startTime;
+        LocalDateTime before = null;
+        if (date != null) {
+            LocalDateTime dayStart = date.atStartOfDay();
+            from = from == null || from.isBefore(dayStart) ? dayStart : from;
+            before = dayStart.plusDays(1);
+        }
+        return sessionRepository.searchListItems(filmId, hallId, from, endTime, before);
+    }
+
+    // Расписание на неделю: один запрос на весь интервал, раскладка по дням за один проход
+    @Transactional(readOnly = true)
+    public Map<String, List<SessionDto>> getWeekSchedule() {
+        LocalDate today = LocalDate.now();
+        Map<String, List<SessionDto>> weekSchedule = new LinkedHashMap<>();
+        for (int i = 0; i < 7; i++) {
+            weekSchedule.put(today.plusDays(i).toString(), new ArrayList<>());
+        }
+
+        for (SessionDto session : sessionRepository.findListItemsBetween(
+                today.atStartOfDay(), today.plusDays(7).atStartOfDay())) {
+            weekSchedule.get(session.getDateTime().toLocalDate().toString()).add(session);
+        }
+        return weekSchedule;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SessionDto> getFirstSessionAfter(LocalDateTime date) {
+        return sessionRepository.findFirstListItemAfter(date);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSessionsStatistics() {
+        Object[] row = sessionRepository.countStatistics(LocalDateTime.now()).get(0);
+        long upcomingSessions = ((Number) row[1]).longValue();
+        long cancelledSessions = ((Number) row[3]).longValue();
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalSessions", ((Number) row[0]).longValue());
+        statistics.put("upcomingSessions", upcomingSessions);
+        statistics.put("pastSessions", ((Number) row[2]).longValue());
+        statistics.put("cancelledSessions", cancelledSessions);
+        statistics.put("activeSessions", upcomingSessions - cancelledSessions);
+        return statistics;
+    }
+
+    @Transactional(readOnly = true)
     public List<SessionDto> getAvailableSessions() {
-        return sessionRepository.findByDateTimeAfter(LocalDateTime.now()).stream()
-                .filter(session -> !"Отменен".equals(session.getStatus()))
-                .map(sessionMapping::toDto)
-                .collect(Collectors.toList());
+        return sessionRepository.findAvailableListItems(LocalDateTime.now());
     }
 
+    @Transactional(readOnly = true)
     public List<SessionDto> getSessionsByMovieAndDate(Long filmId, LocalDate date) {
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
 
-        return sessionRepository.findByFilmFilmId(filmId).stream()
-                .filter(session ->
-                        session.getDateTime().isAfter(startOfDay) &&
-                                session.getDateTime().isBefore(endOfDay) &&
-                                !"Отменен".equals(session.getStatus())
-                )
-                .map(sessionMapping::toDto)
-                .collect(Collectors.toList());
+        return sessionRepository.findActiveListItemsByFilmBetween(filmId, startOfDay, endOfDay);
     }
 
     // Метод для получения деталей сеанса
@@ -219,7 +488,7 @@ public class SessionService {
         details.put("session", sessionMapping.toDto(session));
         details.put("film", session.getFilm());
         details.put("hall", session.getHall());
-        details.put("availableSeats", getAvailableSeats(id).size());
+        details.put("availableSeats", seatInventory.getSession(id).availableCount());
         details.put("totalSeats", seatRepository.countSeatsByHall(session.getHall().getHallId()));
 
         return details;
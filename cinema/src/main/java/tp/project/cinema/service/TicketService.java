@@ -3,6 +3,7 @@ package tp.project.cinema.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.FilmDto;
 import tp.project.cinema.dto.TicketDto;
 import tp.project.cinema.dto.Mapping.TicketMapping;
@@ -12,12 +13,14 @@ import tp.project.cinema.repository.TicketRepository;
 import tp.project.cinema.repository.BookingRepository;
 import tp.project.cinema.repository.SeatRepository;
 import tp.project.cinema.repository.SessionRepository;
+import tp.project.cinema.security.AuthService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +33,12 @@ public class TicketService {
     private final SeatRepository seatRepository;
     private final SessionRepository sessionRepository;
     private final TicketMapping ticketMapping;
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHoldService;
+    private final CatalogVersions catalogVersions;
+    private final CursorPaging cursorPaging;
+    private final SalesRollup salesRollup;
+    private final AuthService authService;
 
     public TicketDto createTicket(TicketDto ticketDto) {
 
@@ -39,11 +48,24 @@ public class TicketService {
         Booking booking = bookingRepository.findById(ticketDto.getBookingId())
                 .orElseThrow(() -> new ResourceNotFoundException("Бронь с ID " + ticketDto.getBookingId() + " не найдена"));
 
+        // Место должно быть свободно или удерживаться владельцем брони
+        Integer sessionId = booking.getSession().getSessionId();
+        Long ownerId = authService.requireActingUser(booking.getUser().getUserId());
+        seatHoldService.claim(sessionId, ownerId, List.of(seat.getSeatId()));
+
         Ticket ticket = ticketMapping.toEntity(ticketDto);
         ticket.setSeat(seat);
         ticket.setBooking(booking);
+        if (ticket.getPrice() == null || ticket.getPrice().signum() == 0) {
+            ticket.setPrice(seat.getHall().getBasePrice().multiply(seat.getSeatType().getPriceMultiplier()));
+        }
 
         ticketRepository.save(ticket);
+        // Стоимость брони поддерживается при записи, а не пересчитывается при чтении
+        booking.setTotalCost(addCost(booking.getTotalCost(), ticket.getPrice()));
+        salesRollup.changed(booking.getBookingTime());
+        seatInventory.markOccupied(sessionId, seat.getSeatId());
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
 
         return ticketMapping.toDto(ticket);
     }
@@ -54,26 +76,23 @@ public class TicketService {
         return ticketMapping.toDto(ticket);
     }
 
+    @Transactional(readOnly = true)
     public List<TicketDto> getTicketsByBooking(Long bookingId) {
         if (!bookingRepository.existsById(bookingId)) {
             throw new ResourceNotFoundException("Бронирование с ID " + bookingId + " не найдено");
         }
 
-        return ticketRepository.findByBookingBookingId(bookingId).stream()
-                .map(ticketMapping::toDto)
-                .collect(Collectors.toList());
+        return ticketRepository.findListItemsByBooking(bookingId);
     }
 
+    @Transactional(readOnly = true)
     public List<TicketDto> getTicketsByUser(Long userId) {
-        return ticketRepository.findByUserId(userId).stream()
-                .map(ticketMapping::toDto)
-                .collect(Collectors.toList());
+        return ticketRepository.findListItemsByUser(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<TicketDto> getTicketsBySession(Integer sessionId) {
-        return ticketRepository.findBySessionId(sessionId).stream()
-                .map(ticketMapping::toDto)
-                .collect(Collectors.toList());
+        return ticketRepository.findListItemsBySession(sessionId);
     }
 
     public TicketDto getTicketByCode(String ticketCode) {
@@ -98,10 +117,24 @@ public class TicketService {
     }
 
     public void deleteTicket(Long id) {
-        if (!ticketRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Билет с ID " + id + " не найден");
+        Ticket ticket = ticketRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Билет с ID " + id + " не найден"));
+
+        Booking booking = ticket.getBooking();
+        ticketRepository.delete(ticket);
+        if (ticket.getPrice() != null) {
+            booking.setTotalCost(addCost(booking.getTotalCost(), ticket.getPrice().negate()));
+        }
+        salesRollup.changed(ticket.getCreationDate(), booking.getBookingTime());
+        // Место билета отменённой брони уже свободно и могло быть продано заново
+        if (!SessionLifecycle.isBookingCancelled(booking.getBookingStatus().getStatusName())) {
+            seatInventory.release(booking.getSession().getSessionId(), List.of(ticket.getSeat().getSeatId()));
         }
-        ticketRepository.deleteById(id);
+        catalogVersions.changed(CatalogVersions.Aggregate.BOOKINGS);
+    }
+
+    private BigDecimal addCost(BigDecimal total, BigDecimal price) {
+        return (total != null ? total : BigDecimal.ZERO).add(price);
     }
 
     // Дополнительные методы
@@ -112,6 +145,18 @@ public class TicketService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<TicketDto> getTicketsByDateRangePage(LocalDateTime startDate, LocalDateTime endDate,
+                                                           String cursor, Integer limit) {
+        int pageSize = cursorPaging.resolveLimit(limit);
+        String[] keys = cursorPaging.decode(cursor, 2);
+        List<TicketDto> rows = ticketRepository.findListItemsInPeriodAfter(startDate, endDate,
+                keys != null ? CursorPaging.parseTime(keys[0]) : null,
+                keys != null ? CursorPaging.parseLong(keys[1]) : null,
+                cursorPaging.probe(pageSize));
+        return cursorPaging.page(rows, pageSize, ticket -> new Object[]{ticket.getCreationDate(), ticket.getTicketId()});
+    }
+
     public List<TicketDto> getTicketsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         return ticketRepository.findByCreationDateBetween(startDate, endDate).stream()
                 .map(ticketMapping::toDto)
@@ -130,8 +175,13 @@ public class TicketService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalRevenueForPeriod(LocalDateTime start, LocalDateTime end) {
-        BigDecimal revenue = ticketRepository.getTotalRevenueForPeriod(start, end);
-        return revenue != null ? revenue : BigDecimal.ZERO;
+        return salesRollup.sales(start, end).ticketRevenue();
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> getTicketCountsByHall(LocalDateTime start, LocalDateTime end) {
+        return salesRollup.ticketsByHall(start, end);
     }
 }
\ No newline at end of file
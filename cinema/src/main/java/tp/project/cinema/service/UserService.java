@@ -1,9 +1,9 @@
 package tp.project.cinema.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tp.project.cinema.dto.CursorPage;
 import tp.project.cinema.dto.UserDto;
 import tp.project.cinema.dto.UserRegisterDto;
 import tp.project.cinema.dto.Mapping.UserMapping;
@@ -11,6 +11,7 @@ import tp.project.cinema.exception.ResourceNotFoundException;
 import tp.project.cinema.exception.AlreadyExistsException;
 import tp.project.cinema.model.User;
 import tp.project.cinema.repository.UserRepository;
+import tp.project.cinema.security.PasswordHasher;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -23,7 +24,8 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final UserMapping userMapping;
-    private final PasswordEncoder passwordEncoder; // Добавляем PasswordEncoder
+    private final PasswordHasher passwordHasher; // BCrypt в отдельном ограниченном пуле
+    private final CursorPaging cursorPaging;
 
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
@@ -31,6 +33,16 @@ public class UserService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto> getUsersPage(String cursor, Integer limit) {
+        int pageSize = cursorPaging.resolveLimit(limit);
+        List<UserDto> rows = userRepository.findPageAfter(cursorPaging.decodeId(cursor), cursorPaging.probe(pageSize))
+                .stream()
+                .map(userMapping::toListItemDto)
+                .collect(Collectors.toList());
+        return cursorPaging.page(rows, pageSize, user -> new Object[]{user.getUserId()});
+    }
+
     public UserDto getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + id + " не найден"));
@@ -43,7 +55,7 @@ public class UserService {
         }
 
         User user = userMapping.toEntity(userDto);
-        user.setPasswordHash(passwordEncoder.encode(userDto.getPassword())); // Используем шифрование
+        user.setPasswordHash(passwordHasher.encode(userDto.getPassword())); // Используем шифрование
         user.setRegistrationDate(LocalDate.now());
         user.setRole("USER");
 
@@ -66,7 +78,7 @@ public class UserService {
         existingUser.setBirthDate(userDto.getBirthDate());
 
         if (userDto.getPassword() != null && !userDto.getPassword().isEmpty()) {
-            existingUser.setPasswordHash(passwordEncoder.encode(userDto.getPassword())); // Используем шифрование
+            existingUser.setPasswordHash(passwordHasher.encode(userDto.getPassword())); // Используем шифрование
         }
 
         User updatedUser = userRepository.save(existingUser);
@@ -163,7 +175,7 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + id + " не найден"));
 
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
+        user.setPasswordHash(passwordHasher.encode(newPassword));
         User updatedUser = userRepository.save(user);
         return userMapping.toDto(updatedUser);
     }
@@ -0,0 +1,108 @@
+package tp.project.cinema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import tp.project.cinema.repository.FilmRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Сравнение LIKE '%слово%' и полнотекстового поиска на 100 тысячах синтетических фильмов.
+// Долгий и требует PostgreSQL: mvn test -Dtest=FilmSearchBenchmarkTests -Dfilm.search.benchmark=true
+@EnabledIfSystemProperty(named = "film.search.benchmark", matches = "true")
+@SpringBootTest(properties = {"film.search.mode=fulltext", "spring.jpa.show-sql=false"})
+@Transactional
+class FilmSearchBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(FilmSearchBenchmarkTests.class);
+
+    private static final int FILMS = 100_000;
+    private static final int RUNS = 20;
+    private static final String RARE_WORD = "звездолет";
+    private static final String[] WORDS = {
+            "космос", "корабль", "любовь", "война", "детектив", "город", "ночь", "тайна", "семья", "дорога",
+            "море", "остров", "робот", "время", "память", "дракон", "король", "школа", "поезд", "зима",
+            "space", "ship", "love", "war", "city", "night", "secret", "family", "road", "island"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilmRepository filmRepository;
+
+    @Test
+    void compareLikeAndFullText() {
+        insertFilms();
+        jdbcTemplate.execute("ANALYZE film");
+
+        // Частое русское слово, английское слово и слово из 0,1% описаний
+        for (String keyword : List.of("космос", "secret", RARE_WORD)) {
+            // Тот же фильтр, что и в FilmRepository.searchByKeyword, но без загрузки сущностей
+            Supplier<List<Long>> like = () -> jdbcTemplate.queryForList(
+                    "SELECT film_id FROM film WHERE LOWER(title) LIKE LOWER('%' || ? || '%') " +
+                            "OR LOWER(description) LIKE LOWER('%' || ? || '%')", Long.class, keyword, keyword);
+            Supplier<List<Long>> fullText = () -> filmRepository.searchIdsByFullText(keyword);
+
+            int fullTextCount = fullText.get().size();
+            assertTrue(fullTextCount > 0, keyword);
+
+            log.info("'{}': LIKE {} мкс ({} фильмов), fulltext {} мкс ({} фильмов)", keyword,
+                    median(like) / 1000, like.get().size(), median(fullText) / 1000, fullTextCount);
+        }
+    }
+
+    private void insertFilms() {
+        Long countryId = jdbcTemplate.queryForObject(
+                "INSERT INTO country (country_name) VALUES ('Бенчмарк') RETURNING country_id", Long.class);
+        Long directorId = jdbcTemplate.queryForObject(
+                "INSERT INTO director (name, surname, country_id) VALUES ('Бенч', 'Марков', ?) RETURNING director_id",
+                Long.class, countryId);
+        Long ratingId = jdbcTemplate.queryForObject(
+                "INSERT INTO age_rating (rating_value) VALUES ('benchmark') RETURNING rating_id", Long.class);
+
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(FILMS);
+        for (int i = 0; i < FILMS; i++) {
+            String description = phrase(random, 25) + (i % 1000 == 0 ? " " + RARE_WORD : "");
+            rows.add(new Object[]{phrase(random, 3), description, (short) (80 + random.nextInt(100)),
+                    Date.valueOf(LocalDate.now().minusDays(random.nextInt(3650))), directorId, countryId, ratingId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film (title, description, duration, release_date, " +
+                "director_id, country_id, rating_id) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static String phrase(Random random, int words) {
+        String[] phrase = new String[words];
+        for (int i = 0; i < words; i++) {
+            phrase[i] = WORDS[random.nextInt(WORDS.length)];
+        }
+        return String.join(" ", phrase);
+    }
+
+    // Медиана времени выполнения в наносекундах, первый прогон - прогрев
+    private static long median(Supplier<List<Long>> query) {
+        query.get();
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
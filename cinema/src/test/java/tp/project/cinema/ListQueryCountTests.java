@@ -0,0 +1,188 @@
+package tp.project.cinema;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import tp.project.cinema.model.*;
+import tp.project.cinema.service.BookingService;
+import tp.project.cinema.service.SessionService;
+import tp.project.cinema.service.TicketService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Количество запросов у списковых методов не должно зависеть от числа строк в ответе
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=tp.project.cinema.QueryCountInspector")
+@Transactional
+class ListQueryCountTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TicketService ticketService;
+
+    private Film film;
+    private Hall hall;
+    private SeatType seatType;
+    private User user;
+    private BookingStatus bookingStatus;
+    private short nextRow = 1;
+
+    @BeforeEach
+    void setUp() {
+        Country country = new Country();
+        country.setCountryName("Тест");
+        entityManager.persist(country);
+
+        Director director = new Director();
+        director.setName("Иван");
+        director.setSurname("Тестов");
+        director.setCountry(country);
+        entityManager.persist(director);
+
+        AgeRating ageRating = new AgeRating();
+        ageRating.setRatingValue("0+");
+        entityManager.persist(ageRating);
+
+        film = new Film();
+        film.setTitle("Тестовый фильм");
+        film.setDuration((short) 120);
+        film.setReleaseDate(LocalDate.now());
+        film.setDirector(director);
+        film.setCountry(country);
+        film.setAgeRating(ageRating);
+        entityManager.persist(film);
+
+        HallType hallType = new HallType();
+        hallType.setTypeName("Тестовый");
+        entityManager.persist(hallType);
+
+        hall = new Hall();
+        hall.setHallName("Тестовый зал");
+        hall.setStatus("AVAILABLE");
+        hall.setBasePrice(new BigDecimal("300.00"));
+        hall.setRowsCount((short) 10);
+        hall.setSeatsPerRow((short) 10);
+        hall.setHallType(hallType);
+        entityManager.persist(hall);
+
+        seatType = new SeatType();
+        seatType.setTypeName("Тестовое");
+        seatType.setPriceMultiplier(BigDecimal.ONE);
+        entityManager.persist(seatType);
+
+        user = new User();
+        user.setName("Пётр");
+        user.setSurname("Тестов");
+        user.setEmail("query-count@test.local");
+        user.setPasswordHash("hash");
+        user.setRole("USER");
+        entityManager.persist(user);
+
+        bookingStatus = new BookingStatus();
+        bookingStatus.setStatusName("QUERY_COUNT_TEST");
+        entityManager.persist(bookingStatus);
+    }
+
+    @Test
+    void listQueriesDoNotGrowWithResultSize() {
+        Session firstSession = addSessionWithBooking(1);
+        Long firstBookingId = firstSession.getBookingList().get(0).getBookingId();
+        Map<String, Runnable> endpoints = endpoints(firstSession.getSessionId(), firstBookingId);
+        Map<String, Integer> small = measure(endpoints);
+
+        for (int i = 0; i < 4; i++) {
+            addSessionWithBooking(3);
+        }
+        addBooking(firstSession, 3);
+        Map<String, Integer> large = measure(endpoints);
+
+        assertAll(endpoints.keySet().stream()
+                .map(name -> (Executable) () -> assertEquals(small.get(name), large.get(name), name)));
+    }
+
+    private Map<String, Runnable> endpoints(Integer sessionId, Long bookingId) {
+        Map<String, Runnable> endpoints = new LinkedHashMap<>();
+        endpoints.put("getAllSessions", sessionService::getAllSessions);
+        endpoints.put("getSessionsByFilm", () -> sessionService.getSessionsByFilm(film.getFilmId()));
+        endpoints.put("getSessionsByHall", () -> sessionService.getSessionsByHall(hall.getHallId()));
+        endpoints.put("getAllBookings", bookingService::getAllBookings);
+        endpoints.put("getBookingsByUser", () -> bookingService.getBookingsByUser(user.getUserId()));
+        endpoints.put("getBookingsBySession", () -> bookingService.getBookingsBySession(sessionId));
+        endpoints.put("getTicketsByUser", () -> ticketService.getTicketsByUser(user.getUserId()));
+        endpoints.put("getTicketsBySession", () -> ticketService.getTicketsBySession(sessionId));
+        endpoints.put("getTicketsByBooking", () -> ticketService.getTicketsByBooking(bookingId));
+        return endpoints;
+    }
+
+    private Map<String, Integer> measure(Map<String, Runnable> endpoints) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            // Пустой контекст: все связи должны читаться из БД, а не из кэша первого уровня
+            entityManager.flush();
+            entityManager.clear();
+            QueryCountInspector.reset();
+            endpoint.run();
+            counts.put(name, QueryCountInspector.count());
+        });
+        return counts;
+    }
+
+    private Session addSessionWithBooking(int tickets) {
+        Session session = new Session();
+        session.setFilm(film);
+        session.setHall(hall);
+        session.setStatus("Запланирован");
+        session.setDateTime(LocalDateTime.now().plusDays(nextRow));
+        entityManager.persist(session);
+        addBooking(session, tickets);
+        return session;
+    }
+
+    private void addBooking(Session session, int tickets) {
+        Booking booking = new Booking();
+        booking.setUser(user);
+        booking.setSession(session);
+        booking.setBookingStatus(bookingStatus);
+        booking.setBookingTime(LocalDateTime.now());
+        booking.setTotalCost(hall.getBasePrice().multiply(BigDecimal.valueOf(tickets)));
+        entityManager.persist(booking);
+        session.getBookingList().add(booking);
+
+        for (short i = 1; i <= tickets; i++) {
+            Seat seat = new Seat();
+            seat.setRowNumber(nextRow);
+            seat.setSeatNumber(i);
+            seat.setHall(hall);
+            seat.setSeatType(seatType);
+            entityManager.persist(seat);
+
+            Ticket ticket = new Ticket();
+            ticket.setSeat(seat);
+            ticket.setBooking(booking);
+            ticket.setPrice(hall.getBasePrice());
+            ticket.setTicketCode("QC-" + nextRow + "-" + i);
+            entityManager.persist(ticket);
+            booking.getTicketList().add(ticket);
+        }
+        nextRow++;
+    }
+}
@@ -0,0 +1,118 @@
+package tp.project.cinema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tp.project.cinema.service.SchedulePacker;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Раскладка 20 залов на 14 дней без БД: время раскладки и плотность расписания.
+// mvn test -Dtest=SchedulePackerBenchmarkTests -Dschedule.pack.benchmark=true
+@EnabledIfSystemProperty(named = "schedule.pack.benchmark", matches = "true")
+class SchedulePackerBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(SchedulePackerBenchmarkTests.class);
+
+    private static final int HALLS = 20;
+    private static final int DAYS = 14;
+    private static final int FILMS = 40;
+    private static final int CLEANING_MINUTES = 20;
+    private static final int RUNS = 20;
+    private static final LocalTime OPENS_AT = LocalTime.of(9, 0);
+    private static final LocalTime CLOSES_AT = LocalTime.of(1, 0);
+
+    @Test
+    void packTwentyHallsForTwoWeeks() {
+        Random random = new Random(42);
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = from.plusDays(DAYS - 1);
+
+        List<SchedulePacker.PackHall> halls = new ArrayList<>();
+        for (int i = 1; i <= HALLS; i++) {
+            halls.add(new SchedulePacker.PackHall((short) i, 50 + random.nextInt(250)));
+        }
+        List<SchedulePacker.PackFilm> films = new ArrayList<>();
+        for (long i = 1; i <= FILMS; i++) {
+            // Часть фильмов выходит в прокат посреди периода
+            LocalDate release = i % 5 == 0 ? from.plusDays(random.nextInt(DAYS)) : null;
+            films.add(new SchedulePacker.PackFilm(i, 85 + random.nextInt(100), 1 + random.nextInt(10), release));
+        }
+
+        // Уже созданные сеансы: в каждом третьем зале каждый день занят вечер
+        Map<Short, List<LocalDateTime[]>> existing = new HashMap<>();
+        for (int i = 1; i <= HALLS; i += 3) {
+            List<LocalDateTime[]> busy = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                busy.add(new LocalDateTime[]{day.atTime(18, 0), day.atTime(20, 30)});
+            }
+            existing.put((short) i, busy);
+        }
+        SchedulePacker.Occupancy occupancy = (hallId, start, end) -> existing.getOrDefault(hallId, List.of()).stream()
+                .filter(busy -> busy[0].isBefore(end) && start.isBefore(busy[1]))
+                .map(busy -> busy[1])
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        SchedulePacker packer = new SchedulePacker(CLEANING_MINUTES, 5);
+        List<SchedulePacker.Placement> placements = packer.pack(halls, films, from, to, OPENS_AT, CLOSES_AT, occupancy);
+        long[] times = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            packer.pack(halls, films, from, to, OPENS_AT, CLOSES_AT, occupancy);
+            times[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+
+        assertFalse(placements.isEmpty());
+        checkPlacements(placements, films, occupancy);
+
+        Map<Long, Integer> durations = new HashMap<>();
+        films.forEach(film -> durations.put(film.filmId(), film.duration()));
+        long shownMinutes = placements.stream().mapToLong(placement -> durations.get(placement.filmId())).sum();
+        long openMinutes = Duration.between(OPENS_AT, CLOSES_AT).plusDays(1).toMinutes() * DAYS * HALLS;
+        log.info("{} залов x {} дней, {} фильмов: {} сеансов, медиана {} мс, показы занимают {}% часов работы",
+                HALLS, DAYS, FILMS, placements.size(), "%.1f".formatted(times[RUNS / 2] / 1e6),
+                Math.round(100.0 * shownMinutes / openMinutes));
+        assertTrue(times[RUNS / 2] < 5_000_000_000L, "Раскладка должна укладываться в секунды");
+    }
+
+    // Сеансы зала не пересекаются (с уборкой), не заходят на занятое время и заканчиваются до закрытия
+    private static void checkPlacements(List<SchedulePacker.Placement> placements,
+                                        List<SchedulePacker.PackFilm> films, SchedulePacker.Occupancy occupancy) {
+        Map<Long, SchedulePacker.PackFilm> byId = new HashMap<>();
+        films.forEach(film -> byId.put(film.filmId(), film));
+        Map<Short, List<SchedulePacker.Placement>> byHall = new HashMap<>();
+        for (SchedulePacker.Placement placement : placements) {
+            byHall.computeIfAbsent(placement.hallId(), id -> new ArrayList<>()).add(placement);
+            assertNull(occupancy.busyUntil(placement.hallId(), placement.start(), placement.end()));
+
+            SchedulePacker.PackFilm film = byId.get(placement.filmId());
+            LocalDate day = placement.start().toLocalTime().isBefore(OPENS_AT)
+                    ? placement.start().toLocalDate().minusDays(1) : placement.start().toLocalDate();
+            assertTrue(film.releaseDate() == null || !film.releaseDate().isAfter(day));
+            assertFalse(placement.start().plusMinutes(film.duration()).isAfter(day.plusDays(1).atTime(CLOSES_AT)));
+        }
+        for (List<SchedulePacker.Placement> hall : byHall.values()) {
+            hall.sort(Comparator.comparing(SchedulePacker.Placement::start));
+            for (int i = 1; i < hall.size(); i++) {
+                assertFalse(hall.get(i).start().isBefore(hall.get(i - 1).end()));
+            }
+        }
+    }
+}
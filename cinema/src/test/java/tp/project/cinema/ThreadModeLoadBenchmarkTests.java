@@ -0,0 +1,106 @@
+package tp.project.cinema;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tp.project.cinema.model.Session;
+import tp.project.cinema.repository.SessionRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Нагрузка на схему мест и брони сеанса в режиме платформенных или виртуальных потоков.
+// Требует PostgreSQL с данными; запускается дважды и результаты сравниваются:
+// mvn test -Dtest=ThreadModeLoadBenchmarkTests -Dload.benchmark=true -Dspring.threads.virtual.enabled=false
+// mvn test -Dtest=ThreadModeLoadBenchmarkTests -Dload.benchmark=true -Dspring.threads.virtual.enabled=true
+@EnabledIfSystemProperty(named = "load.benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"rate-limit.enabled=false", "spring.jpa.show-sql=false"})
+class ThreadModeLoadBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadModeLoadBenchmarkTests.class);
+
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 25;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Test
+    void seatMapAndBookingsUnderLoad() throws Exception {
+        List<Session> sessions = sessionRepository.findAll();
+        assertFalse(sessions.isEmpty(), "Нужен хотя бы один сеанс в БД");
+        Integer sessionId = sessions.get(0).getSessionId();
+
+        run("/api/seats/session/" + sessionId + "/layout");
+        run("/api/bookings/session/" + sessionId);
+    }
+
+    private void run(String path) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        // Клиенты - виртуальные потоки в обоих режимах: сравнивается только сервер
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - sent);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        log.info("{} потоки, {}: {} запросов/с, p50 {} мс, p99 {} мс, ошибок {}",
+                virtualThreads ? "виртуальные" : "платформенные", path,
+                Math.round(sorted.size() / seconds),
+                "%.1f".formatted(sorted.get(sorted.size() / 2) / 1e6),
+                "%.1f".formatted(sorted.get((int) (sorted.size() * 0.99)) / 1e6),
+                errors.get());
+        assertEquals(0, errors.get(), path);
+    }
+}
@@ -0,0 +1,96 @@
+package tp.project.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tp.project.cinema.dto.FilmDto;
+import tp.project.cinema.repository.FilmGenreRepository;
+import tp.project.cinema.repository.FilmRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Поиск по индексу без БД: фильмы и жанры приходят из подменённых репозиториев
+class FilmSearchIndexTests {
+
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        FilmRepository filmRepository = mock(FilmRepository.class);
+        FilmGenreRepository filmGenreRepository = mock(FilmGenreRepository.class);
+        when(filmRepository.findAllListItems()).thenReturn(List.of(
+                film(1L, "Звёздные войны", "Далёкая галактика", "Джордж Лукас", "12+"),
+                film(2L, "Интерстеллар", "Путешествие сквозь космос", "Кристофер Нолан", "12+"),
+                film(3L, "Звездочёт", "Мальчик смотрит на небо", "Анна Петрова", "6+"),
+                film(4L, "Космос", "Документальный фильм о космосе", "Анна Петрова", "0+")));
+        List<Object[]> genres = new ArrayList<>();
+        genres.add(new Object[]{1L, "Фантастика"});
+        genres.add(new Object[]{2L, "Фантастика"});
+        genres.add(new Object[]{3L, "Драма"});
+        when(filmGenreRepository.findGenreNamesByFilmIds(anyCollection())).thenReturn(genres);
+        index = new FilmSearchIndex(filmRepository, filmGenreRepository);
+    }
+
+    @Test
+    void prefixMatchesIgnoringYo() {
+        assertEquals(Set.of(1L, 3L), Set.copyOf(search("звезд")));
+    }
+
+    @Test
+    void substringMatchesThroughTrigrams() {
+        assertEquals(List.of(2L), search("стелл"));
+        assertEquals(List.of(1L), search("алакт"));
+    }
+
+    @Test
+    void shortTokenMatchesOnlyByPrefix() {
+        assertEquals(Set.of(1L, 3L), Set.copyOf(search("зв")));
+        assertTrue(search("ел").isEmpty());
+    }
+
+    @Test
+    void everyQueryWordIsRequired() {
+        assertEquals(List.of(1L), search("звезд войны"));
+        assertTrue(search("звезд нолан").isEmpty());
+    }
+
+    @Test
+    void titleRanksAboveDescription() {
+        assertEquals(List.of(4L, 2L), search("космос"));
+        assertEquals(List.of(4L), index.search("космос", FilmSearchIndex.TITLE, document -> true));
+    }
+
+    @Test
+    void exactWordRanksAbovePrefix() {
+        // В описании фильма 2 слово "космос", у фильма 4 - "космосе"
+        assertEquals(List.of(2L, 4L), index.search("космос", FilmSearchIndex.DESCRIPTION, document -> true));
+    }
+
+    @Test
+    void filterAndEmptyQuery() {
+        assertEquals(List.of(1L, 2L, 3L, 4L), search(" "));
+        assertEquals(List.of(1L, 2L), index.search("", FilmSearchIndex.ALL_FIELDS,
+                document -> document.genres().contains("фантастика")));
+    }
+
+    private List<Long> search(String text) {
+        return index.search(text, FilmSearchIndex.ALL_FIELDS, document -> true);
+    }
+
+    private static FilmDto film(Long filmId, String title, String description, String director, String ageRating) {
+        FilmDto film = new FilmDto();
+        film.setFilmId(filmId);
+        film.setTitle(title);
+        film.setDescription(description);
+        film.setDirectorName(director);
+        film.setAgeRating(ageRating);
+        return film;
+    }
+}
@@ -0,0 +1,100 @@
+package tp.project.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tp.project.cinema.repository.SessionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Пересечение интервалов зала на границах: сеанс 10:00 на 100 минут плюс 20 минут уборки занимает [10:00, 12:00)
+class HallScheduleTests {
+
+    private static final Short HALL = 1;
+    private static final LocalDateTime TEN = LocalDateTime.of(2026, 3, 1, 10, 0);
+    private static final LocalDateTime NOON = TEN.plusHours(2);
+
+    private final SessionRepository sessionRepository = mock(SessionRepository.class);
+    private HallSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> occupancy = new ArrayList<>();
+        occupancy.add(new Object[]{7, TEN, (short) 100});
+        when(sessionRepository.findHallOccupancy(HALL)).thenReturn(occupancy);
+        schedule = new HallSchedule(sessionRepository);
+        ReflectionTestUtils.setField(schedule, "cleaningMinutes", 20);
+    }
+
+    @Test
+    void slotIncludesCleaning() {
+        HallSchedule.Slot slot = schedule.slot(7, TEN, 100);
+        assertEquals(NOON, slot.end());
+    }
+
+    @Test
+    void adjacentIntervalsDoNotConflict() {
+        // Следующий сеанс может начаться ровно в конце уборки, предыдущий - закончиться ровно в начале
+        assertTrue(schedule.conflicts(HALL, NOON, NOON.plusHours(2), null).isEmpty());
+        assertTrue(schedule.conflicts(HALL, TEN.minusHours(2), TEN, null).isEmpty());
+    }
+
+    @Test
+    void overlapByOneMinuteConflicts() {
+        assertEquals(List.of(7), sessionIds(schedule.conflicts(HALL, NOON.minusMinutes(1), NOON.plusHours(2), null)));
+        assertEquals(List.of(7), sessionIds(schedule.conflicts(HALL, TEN.minusHours(2), TEN.plusMinutes(1), null)));
+        // Интервал внутри сеанса и интервал, накрывающий его целиком
+        assertEquals(List.of(7), sessionIds(schedule.conflicts(HALL, TEN.plusMinutes(30), TEN.plusMinutes(40), null)));
+        assertEquals(List.of(7), sessionIds(schedule.conflicts(HALL, TEN.minusHours(1), NOON.plusHours(1), null)));
+    }
+
+    @Test
+    void movedSessionIsNotItsOwnConflict() {
+        assertTrue(schedule.conflicts(HALL, TEN.plusMinutes(30), NOON.plusMinutes(30), 7).isEmpty());
+    }
+
+    @Test
+    void emptyIntervalConflictsWithNothing() {
+        assertTrue(schedule.conflicts(HALL, TEN.plusMinutes(30), TEN.plusMinutes(30), null).isEmpty());
+    }
+
+    @Test
+    void planChecksAcceptedCandidatesAtEdges() {
+        HallSchedule.Plan plan = schedule.plan();
+        plan.accept(HALL, 0, NOON, NOON.plusHours(2));
+
+        HallSchedule.Conflicts adjacent = plan.check(HALL, NOON.plusHours(2), NOON.plusHours(4));
+        assertTrue(adjacent.isEmpty());
+
+        HallSchedule.Conflicts overlapping = plan.check(HALL, NOON.minusMinutes(1), NOON.plusHours(1));
+        assertEquals(List.of(7), sessionIds(overlapping.sessions()));
+        assertEquals(List.of(0), overlapping.planned());
+    }
+
+    @Test
+    void syncAddsCommittedSessionsButNotTheMovedOne() {
+        schedule.conflicts(HALL, TEN, NOON, null);
+        List<Object[]> committed = new ArrayList<>();
+        committed.add(new Object[]{8, NOON, (short) 60});
+        committed.add(new Object[]{9, NOON.plusHours(2), (short) 60});
+        when(sessionRepository.findHallOccupancyBetween(eq(HALL), any(), any(), anyInt())).thenReturn(committed);
+
+        schedule.sync(HALL, NOON, NOON.plusHours(4), 9);
+
+        assertEquals(List.of(8), sessionIds(schedule.conflicts(HALL, NOON, NOON.plusHours(4), null)));
+    }
+
+    private static List<Integer> sessionIds(List<HallSchedule.Slot> slots) {
+        return slots.stream().map(HallSchedule.Slot::sessionId).toList();
+    }
+}
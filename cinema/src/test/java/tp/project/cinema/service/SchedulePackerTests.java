@@ -0,0 +1,66 @@
+package tp.project.cinema.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Один зал, один фильм на 97 минут, уборка 20 минут, начала сеансов - с шагом 15 минут от открытия
+class SchedulePackerTests {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 1);
+    private static final Short HALL = 1;
+    private static final List<SchedulePacker.PackHall> HALLS = List.of(new SchedulePacker.PackHall(HALL, 100));
+    private static final List<SchedulePacker.PackFilm> FILMS = List.of(new SchedulePacker.PackFilm(1L, 97, 1, null));
+    private static final SchedulePacker.Occupancy FREE = (hallId, start, end) -> null;
+
+    private final SchedulePacker packer = new SchedulePacker(20, 15);
+
+    @Test
+    void startsAreAlignedToStepAfterCleaning() {
+        List<SchedulePacker.Placement> placements = packer.pack(HALLS, FILMS, DAY, DAY,
+                LocalTime.of(9, 0), LocalTime.of(14, 0), FREE);
+
+        // 9:00 + 97 + 20 = 10:57 -> 11:00; 11:00 + 117 = 12:57 -> 13:00 - фильм уже не успевает до 14:00
+        assertEquals(List.of(DAY.atTime(9, 0), DAY.atTime(11, 0)), starts(placements));
+        assertEquals(DAY.atTime(10, 57), placements.get(0).end());
+    }
+
+    @Test
+    void existingSessionPushesNextStartToAlignedTime() {
+        LocalDateTime busyFrom = DAY.atTime(12, 0);
+        LocalDateTime busyUntil = DAY.atTime(13, 10);
+        SchedulePacker.Occupancy occupancy = (hallId, start, end) ->
+                start.isBefore(busyUntil) && busyFrom.isBefore(end) ? busyUntil : null;
+
+        List<SchedulePacker.Placement> placements = packer.pack(HALLS, FILMS, DAY, DAY,
+                LocalTime.of(9, 0), LocalTime.of(23, 0), occupancy);
+
+        // Сеанс в 11:00 задел бы занятый интервал; следующий шаг после 13:10 - 13:15
+        assertEquals(List.of(DAY.atTime(9, 0), DAY.atTime(13, 15), DAY.atTime(15, 15), DAY.atTime(17, 15),
+                DAY.atTime(19, 15), DAY.atTime(21, 15)), starts(placements));
+    }
+
+    @Test
+    void closingAfterMidnightBelongsToTheSameDay() {
+        List<SchedulePacker.Placement> placements = packer.pack(HALLS, FILMS, DAY, DAY,
+                LocalTime.of(22, 0), LocalTime.of(1, 0), FREE);
+
+        // 22:00 + 117 = 23:57 -> 0:00, а фильм с 0:00 закончится позже закрытия в 1:00
+        assertEquals(List.of(DAY.atTime(22, 0)), starts(placements));
+    }
+
+    @Test
+    void stepMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SchedulePacker(20, 0));
+    }
+
+    private static List<LocalDateTime> starts(List<SchedulePacker.Placement> placements) {
+        return placements.stream().map(SchedulePacker.Placement::start).toList();
+    }
+}
@@ -0,0 +1,145 @@
+package tp.project.cinema.service;
+
+import org.junit.jupiter.api.Test;
+import tp.project.cinema.dto.SeatDto;
+import tp.project.cinema.model.Film;
+import tp.project.cinema.model.Hall;
+import tp.project.cinema.model.Session;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Схема, закодированная SeatMapEncoder, читается обратно по формату из его описания
+class SeatMapEncoderTests {
+
+    @Test
+    void roundTrip() {
+        List<SeatDto> seats = List.of(
+                seat(101, 1, 1, "Стандарт", "1.00", "350.00"),
+                seat(102, 1, 2, "Стандарт", "1.00", "350.00"),
+                seat(100, 1, 3, "VIP", "1.50", "525.50"),
+                seat(300, 2, 1, "Стандарт", "1.00", "350.00"),
+                seat(301, 2, 2, "Диван", "2.00", "700.00"));
+        byte[] states = {SeatStream.AVAILABLE, SeatStream.HELD, SeatStream.BOOKED, SeatStream.AVAILABLE, SeatStream.BOOKED};
+        LocalDateTime dateTime = LocalDateTime.of(2026, 3, 1, 19, 30);
+
+        byte[] encoded = SeatMapEncoder.encode(sessionSeats(dateTime, seats), states);
+        Reader in = new Reader(encoded);
+
+        assertEquals('S', in.read());
+        assertEquals('M', in.read());
+        assertEquals(1, in.read());
+        assertEquals(42, in.varint());
+        assertEquals(3, in.varint());
+        assertEquals("Зал 3", in.string());
+        assertEquals("Дюна", in.string());
+        assertEquals(dateTime, LocalDateTime.parse(in.string()));
+
+        List<String> types = new ArrayList<>();
+        List<String> multipliers = new ArrayList<>();
+        List<Integer> prices = new ArrayList<>();
+        int typeCount = in.varint();
+        for (int i = 0; i < typeCount; i++) {
+            types.add(in.string());
+            multipliers.add(in.string());
+            prices.add(in.varint());
+        }
+        assertEquals(List.of("Стандарт", "VIP", "Диван"), types);
+        assertEquals(List.of("1.00", "1.50", "2.00"), multipliers);
+        assertEquals(List.of(35000, 52550, 70000), prices);
+
+        List<SeatDto> decoded = new ArrayList<>();
+        int previousSeatId = 0;
+        int rows = in.varint();
+        for (int row = 0; row < rows; row++) {
+            int rowNumber = in.varint();
+            int count = in.varint();
+            for (int i = 0; i < count; i++) {
+                int seatNumber = in.varint();
+                int zigzag = in.varint();
+                int seatId = previousSeatId + ((zigzag >>> 1) ^ -(zigzag & 1));
+                String type = types.get(in.varint());
+                decoded.add(seat(seatId, rowNumber, seatNumber, type, null, null));
+                previousSeatId = seatId;
+            }
+        }
+        assertEquals(2, rows);
+        assertEquals(seats.size(), decoded.size());
+        for (int i = 0; i < seats.size(); i++) {
+            assertEquals(seats.get(i).getSeatId(), decoded.get(i).getSeatId());
+            assertEquals(seats.get(i).getRowNumber(), decoded.get(i).getRowNumber());
+            assertEquals(seats.get(i).getSeatNumber(), decoded.get(i).getSeatNumber());
+            assertEquals(seats.get(i).getSeatType(), decoded.get(i).getSeatType());
+        }
+
+        byte[] packed = in.readAllBytes();
+        assertEquals((states.length + 3) / 4, packed.length);
+        byte[] decodedStates = new byte[states.length];
+        for (int ordinal = 0; ordinal < states.length; ordinal++) {
+            decodedStates[ordinal] = (byte) ((packed[ordinal >>> 2] >>> ((ordinal & 3) << 1)) & 0b11);
+        }
+        assertArrayEquals(states, decodedStates);
+    }
+
+    private static SeatInventory.SessionSeats sessionSeats(LocalDateTime dateTime, List<SeatDto> seats) {
+        Film film = new Film();
+        film.setFilmId(7L);
+        film.setTitle("Дюна");
+        Hall hall = new Hall();
+        hall.setHallId((short) 3);
+        hall.setHallName("Зал 3");
+        Session session = new Session();
+        session.setSessionId(42);
+        session.setDateTime(dateTime);
+        session.setFilm(film);
+        session.setHall(hall);
+        return new SeatInventory.SessionSeats(session, new SeatInventory.HallLayout((short) 3, seats));
+    }
+
+    private static SeatDto seat(int seatId, int row, int number, String type, String multiplier, String price) {
+        SeatDto seat = new SeatDto();
+        seat.setSeatId(seatId);
+        seat.setRowNumber((short) row);
+        seat.setSeatNumber((short) number);
+        seat.setSeatType(type);
+        seat.setPriceMultiplier(multiplier != null ? new BigDecimal(multiplier) : null);
+        seat.setPrice(price != null ? new BigDecimal(price) : null);
+        return seat;
+    }
+
+    private static final class Reader extends ByteArrayInputStream {
+
+        Reader(byte[] bytes) {
+            super(bytes);
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = read();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        String string() {
+            return new String(readNBytes(varint()), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] readNBytes(int length) {
+            byte[] bytes = new byte[length];
+            read(bytes, 0, length);
+            return bytes;
+        }
+    }
+}